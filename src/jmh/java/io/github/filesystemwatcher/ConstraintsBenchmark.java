@@ -0,0 +1,65 @@
+package io.github.filesystemwatcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Cost of FilesystemConstraints.test for a single event. File types are left out, as they would measure reading attributes.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstraintsBenchmark {
+
+    private static final int EVENTS = 1024;
+
+    @Param({"0", "1", "8", "64"})
+    private int patterns;
+    @Param({"0", "1", "8", "64"})
+    private int substrings;
+
+    private FilesystemConstraints constraints;
+    private FilesystemEvent[] events;
+    private int next;
+
+    @Setup
+    public void createConstraints() {
+        constraints = FilesystemConstraints.DEFAULT
+                .withFilenamePatterns(IntStream.range(0, patterns)
+                        .mapToObj(i -> Pattern.compile("report-" + i + "-\\d+\\.csv"))
+                        .collect(Collectors.toList()))
+                .withFilenameSubstrings(IntStream.range(0, substrings)
+                        .mapToObj(i -> "-" + i + "-")
+                        .collect(Collectors.toList()));
+        Path directory = Paths.get("/var/data/incoming/reports");
+        events = IntStream.range(0, EVENTS)
+                .mapToObj(i -> FilesystemEvent.of(directory.resolve("report-" + i % 100 + "-" + i + ".csv"), FilesystemEventType.MODIFIED))
+                .toArray(FilesystemEvent[]::new);
+        // The matcher is compiled lazily, which should not be part of the first measured call.
+        constraints.test(events[0]);
+    }
+
+    @Benchmark
+    public boolean test() {
+        FilesystemEvent event = events[next];
+        next = (next + 1) & (EVENTS - 1);
+        return constraints.test(event);
+    }
+}
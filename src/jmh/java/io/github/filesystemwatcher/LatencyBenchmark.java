@@ -0,0 +1,124 @@
+package io.github.filesystemwatcher;
+
+import io.github.filesystemwatcher.utilities.FilesystemUtils;
+import io.github.filesystemwatcher.utilities.WatchImplementation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// Time from creating a file to the watched consumer being called with its CREATED event, sampled into JMH's histogram,
+// which reports p50, p99 and p999 among other percentiles. A background thread rewrites `churnFiles` files in the same
+// directory `churn` times per second. POOLING watches through FilesystemPolling, so it can be measured on platforms
+// with a native watch service as well.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LatencyBenchmark {
+
+    private static final FilesystemPolling FAST_POLLING = FilesystemPolling.DEFAULT
+            .withMinimalInterval(Duration.ofMillis(10))
+            .withMaximalInterval(Duration.ofMillis(50));
+    // A lost event fails the iteration instead of spinning forever.
+    private static final Duration PROBE_TIMEOUT = Duration.ofSeconds(10);
+
+    @Param({"NATIVE", "POOLING"})
+    private WatchImplementation implementation;
+    @Param({"0", "1000"})
+    private int churn;
+    @Param({"16"})
+    private int churnFiles;
+
+    private Path root;
+    private Path probe;
+    private FilesystemMonitor monitor;
+    private ScheduledExecutorService churnExecutor;
+
+    private volatile FilesystemEventType probeEvent;
+
+    @Setup(Level.Trial)
+    public void startMonitor() {
+        root = FilesystemUtils.createTempDirectory("latency-benchmark");
+        probe = root.resolve("probe");
+        monitor = FilesystemMonitor.builder()
+                .watchedPath(root)
+                .watchedConstraints(FilesystemConstraints.DEFAULT)
+                .watchedConsumer(event -> {
+                    if (event.getPath().equals(probe)) {
+                        probeEvent = event.getEventType();
+                    }
+                })
+                .polling(implementation == WatchImplementation.POOLING ? FAST_POLLING : null)
+                .build();
+        monitor.startWatching();
+
+        if (churn > 0) {
+            AtomicInteger written = new AtomicInteger();
+            churnExecutor = Executors.newSingleThreadScheduledExecutor();
+            churnExecutor.scheduleAtFixedRate(
+                    () -> FilesystemUtils.writeFile(root.resolve("churn" + written.getAndIncrement() % churnFiles), "churn"),
+                    0, TimeUnit.SECONDS.toNanos(1) / churn, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopMonitor() throws IOException {
+        if (churnExecutor != null) {
+            churnExecutor.shutdownNow();
+        }
+        monitor.stopWatching();
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(FilesystemUtils::delete);
+        }
+    }
+
+    // Removing the probe and waiting for its deletion to be delivered is kept out of the sampled time.
+    @Setup(Level.Invocation)
+    public void deleteProbe() {
+        if (Files.exists(probe)) {
+            FilesystemUtils.delete(probe);
+            awaitProbeEvent(FilesystemEventType.DELETED);
+        }
+        probeEvent = null;
+    }
+
+    @Benchmark
+    public FilesystemEventType createAndAwait() {
+        FilesystemUtils.createFile(root, probe.getFileName().toString());
+        return awaitProbeEvent(FilesystemEventType.CREATED);
+    }
+
+    private FilesystemEventType awaitProbeEvent(FilesystemEventType eventType) {
+        long deadline = System.nanoTime() + PROBE_TIMEOUT.toNanos();
+        while (probeEvent != eventType) {
+            if (System.nanoTime() - deadline >= 0) {
+                throw new IllegalStateException(eventType + " event of " + probe + " was not delivered within " + PROBE_TIMEOUT);
+            }
+            Thread.yield();
+        }
+        return eventType;
+    }
+}
@@ -0,0 +1,100 @@
+package io.github.filesystemwatcher;
+
+import io.github.filesystemwatcher.threads.FilesystemMonitorThreadFactory;
+import io.github.filesystemwatcher.threads.LoggingExecutorService;
+import io.github.filesystemwatcher.utilities.FilesystemUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+// Events per second passed from a producer through the queue to the watched consumer. Events are put straight into
+// the watcher, so the numbers show the cost of the pipeline itself rather than the latency of the watch service.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineBenchmark {
+
+    private static final int EVENTS = 10_000;
+
+    public enum QueueType {
+        QUEUE,
+        RING_BUFFER
+    }
+
+    @Param({"QUEUE", "RING_BUFFER"})
+    private QueueType queueType;
+    @Param({"1", "4"})
+    private int dispatchStripes;
+    @Param({"false", "true"})
+    private boolean batching;
+
+    private final AtomicLong delivered = new AtomicLong();
+
+    private Path root;
+    private FilesystemEvent[] events;
+    private FilesystemWatcher watcher;
+
+    @Setup(Level.Trial)
+    public void startWatcher() {
+        root = FilesystemUtils.createTempDirectory("pipeline-benchmark");
+        events = IntStream.range(0, EVENTS)
+                .mapToObj(i -> FilesystemEvent.of(root.resolve("file" + i % 256), FilesystemEventType.MODIFIED))
+                .toArray(FilesystemEvent[]::new);
+        BlockingQueue<FilesystemEvent> queue = queueType == QueueType.QUEUE
+                ? new FilesystemEventQueue(1024, FilesystemEventQueue.BackpressurePolicy.BLOCK, null)
+                : new FilesystemEventRingBuffer(1024, FilesystemEventRingBuffer.WaitStrategy.PARK);
+        FilesystemWatcher.FilesystemWatcherBuilder builder = FilesystemWatcher.builder()
+                .watchedPath(root)
+                .watchedConstraints(FilesystemConstraints.DEFAULT)
+                .dispatchStripes(dispatchStripes)
+                .blockingQueue(queue)
+                .producersExecutor(new LoggingExecutorService(Executors.newSingleThreadExecutor(
+                        new FilesystemMonitorThreadFactory(getClass().getSimpleName() + "Producers"))))
+                .consumersExecutor(new LoggingExecutorService(Executors.newSingleThreadExecutor(
+                        new FilesystemMonitorThreadFactory(getClass().getSimpleName() + "Consumers"))));
+        watcher = batching
+                ? builder.watchedBatchConsumer(batch -> delivered.addAndGet(batch.size())).build()
+                : builder.watchedConsumer(event -> delivered.incrementAndGet()).build();
+        watcher.startWatching();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopWatcher() {
+        watcher.stopWatching();
+        FilesystemUtils.delete(root);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public long deliver() throws InterruptedException {
+        long target = delivered.get() + EVENTS;
+        for (FilesystemEvent event : events) {
+            watcher.putEvent(event);
+        }
+        while (delivered.get() < target) {
+            Thread.onSpinWait();
+        }
+        return target;
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.filesystemwatcher;
+
+import io.github.filesystemwatcher.utilities.FilesystemUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// Time of one full scan of a generated tree. Each directory below the root has `fanout` subdirectories
+// down to `depth` levels and `files` regular files, so the tree holds files * (fanout^(depth+1) - 1) / (fanout - 1) files.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReaderBenchmark {
+
+    @Param({"3"})
+    private int depth;
+    @Param({"4"})
+    private int fanout;
+    @Param({"20"})
+    private int files;
+    @Param({"1", "4"})
+    private int parallelism;
+    @Param({"false", "true"})
+    private boolean constrained;
+
+    private Path root;
+    private FilesystemConstraints constraints;
+
+    @Setup(Level.Trial)
+    public void createTree() {
+        root = FilesystemUtils.createTempDirectory("reader-benchmark");
+        createLevel(root, depth);
+        constraints = constrained
+                ? FilesystemConstraints.DEFAULT.withFilenameSubstrings(List.of("7")).withRecursive(true)
+                : FilesystemConstraints.DEFAULT.withRecursive(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteTree() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(FilesystemUtils::delete);
+        }
+    }
+
+    @Benchmark
+    public long scan() {
+        LongAdder events = new LongAdder();
+        FilesystemReader.builder()
+                .watchedPath(root)
+                .watchedConstraints(constraints)
+                .watchedConsumer(event -> events.increment())
+                .parallelism(parallelism)
+                .build()
+                .startWatching();
+        return events.sum();
+    }
+
+    private void createLevel(Path directory, int remainingDepth) {
+        for (int i = 0; i < files; i++) {
+            FilesystemUtils.createFile(directory, "file" + i + ".txt");
+        }
+        if (remainingDepth == 0) {
+            return;
+        }
+        for (int i = 0; i < fanout; i++) {
+            createLevel(FilesystemUtils.createDirectory(directory, "directory" + i), remainingDepth - 1);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package io.github.filesystemwatcher;
+
+import io.github.filesystemwatcher.threads.FilesystemMonitorThreadFactory;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.Watchable;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Polls every registered directory on its own schedule. Directories which do not change are polled less and less often,
+// and their entries are not listed again as long as the directory modification time stays the same.
+@Slf4j
+class AdaptivePollingWatchService implements WatchService {
+
+    // Listing done within this time from the directory modification could miss entries on filesystems with coarse timestamps.
+    static final long TIMESTAMP_GRANULARITY_MILLIS = 1000;
+
+    private final WatchKey closedKey = new PollingKey(null);
+    private final LinkedBlockingDeque<WatchKey> signalledKeys = new LinkedBlockingDeque<>();
+    private final long minimalInterval;
+    private final long maximalInterval;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean closed;
+
+    AdaptivePollingWatchService(FilesystemPolling polling) {
+        this.minimalInterval = polling.getMinimalInterval().toNanos();
+        this.maximalInterval = polling.getMaximalInterval().toNanos();
+        this.scheduler = Executors.newScheduledThreadPool(polling.getParallelism(),
+                new FilesystemMonitorThreadFactory(getClass().getSimpleName()));
+    }
+
+    WatchKey register(Path directory) throws IOException {
+        checkOpen();
+        PollingKey key = new PollingKey(directory);
+        key.list();
+        key.schedule(minimalInterval);
+        return key;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdownNow();
+        signalledKeys.clear();
+        signalledKeys.offer(closedKey);
+    }
+
+    @Override
+    public WatchKey poll() {
+        checkOpen();
+        return checkKey(signalledKeys.poll());
+    }
+
+    @Override
+    public WatchKey poll(long timeout, TimeUnit unit) throws InterruptedException {
+        checkOpen();
+        return checkKey(signalledKeys.poll(timeout, unit));
+    }
+
+    @Override
+    public WatchKey take() throws InterruptedException {
+        checkOpen();
+        return checkKey(signalledKeys.take());
+    }
+
+    private WatchKey checkKey(WatchKey key) {
+        if (key == closedKey) {
+            signalledKeys.offer(closedKey);
+            throw new ClosedWatchServiceException();
+        }
+        return key;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new ClosedWatchServiceException();
+        }
+    }
+
+    @Value
+    private static class EntryState {
+        private final long lastModified;
+        private final long size;
+
+        static EntryState read(Path path) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                return new EntryState(attributes.lastModifiedTime().toMillis(), attributes.size());
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+
+    @Value
+    private static class PollingEvent implements WatchEvent<Path> {
+        private final WatchEvent.Kind<Path> kind;
+        private final Path context;
+
+        @Override
+        public Kind<Path> kind() {
+            return kind;
+        }
+
+        @Override
+        public int count() {
+            return 1;
+        }
+
+        @Override
+        public Path context() {
+            return context;
+        }
+    }
+
+    private final class PollingKey implements WatchKey {
+
+        private final Path directory;
+        private final List<WatchEvent<?>> pendingEvents = new ArrayList<>();
+
+        private Map<Path, EntryState> entries = new HashMap<>();
+        private long directoryModified;
+        private long listedAt;
+        private long interval = minimalInterval;
+        private boolean signalled;
+        private volatile boolean valid = true;
+        private volatile ScheduledFuture<?> future;
+
+        PollingKey(Path directory) {
+            this.directory = directory;
+        }
+
+        private void schedule(long delay) {
+            if (valid && !closed) {
+                future = scheduler.schedule(this::pollDirectory, delay, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private void pollDirectory() {
+            try {
+                List<WatchEvent<?>> events = detectChanges();
+                interval = events.isEmpty() ? Math.min(maximalInterval, interval * 2) : Math.max(minimalInterval, interval / 2);
+                signal(events);
+                schedule(interval);
+            } catch (NoSuchFileException e) {
+                cancel();
+            } catch (IOException | RuntimeException e) {
+                // Exceptions would be swallowed by the scheduler and the directory would not be polled anymore.
+                log.error("Cannot poll directory {}", directory, e);
+                schedule(interval);
+            }
+        }
+
+        private List<WatchEvent<?>> detectChanges() throws IOException {
+            List<WatchEvent<?>> events = new ArrayList<>();
+            long modified = Files.getLastModifiedTime(directory, LinkOption.NOFOLLOW_LINKS).toMillis();
+            boolean racy = listedAt - directoryModified < TIMESTAMP_GRANULARITY_MILLIS;
+
+            if (modified == directoryModified && !racy) {
+                for (Map.Entry<Path, EntryState> entry : entries.entrySet()) {
+                    EntryState state = EntryState.read(directory.resolve(entry.getKey()));
+                    if (state != null && !state.equals(entry.getValue())) {
+                        entry.setValue(state);
+                        events.add(new PollingEvent(StandardWatchEventKinds.ENTRY_MODIFY, entry.getKey()));
+                    }
+                }
+                return events;
+            }
+
+            Map<Path, EntryState> previousEntries = entries;
+            list();
+            entries.forEach((name, state) -> {
+                EntryState previous = previousEntries.remove(name);
+                if (previous == null) {
+                    events.add(new PollingEvent(StandardWatchEventKinds.ENTRY_CREATE, name));
+                } else if (!previous.equals(state)) {
+                    events.add(new PollingEvent(StandardWatchEventKinds.ENTRY_MODIFY, name));
+                }
+            });
+            previousEntries.keySet().forEach(name -> events.add(new PollingEvent(StandardWatchEventKinds.ENTRY_DELETE, name)));
+            return events;
+        }
+
+        private void list() throws IOException {
+            directoryModified = Files.getLastModifiedTime(directory, LinkOption.NOFOLLOW_LINKS).toMillis();
+            listedAt = System.currentTimeMillis();
+            Map<Path, EntryState> listedEntries = new HashMap<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path entry : stream) {
+                    EntryState state = EntryState.read(entry);
+                    if (state != null) {
+                        listedEntries.put(entry.getFileName(), state);
+                    }
+                }
+            }
+            entries = listedEntries;
+        }
+
+        private synchronized void signal(List<WatchEvent<?>> events) {
+            if (events.isEmpty()) {
+                return;
+            }
+            pendingEvents.addAll(events);
+            if (!signalled) {
+                signalled = true;
+                signalledKeys.offer(this);
+            }
+        }
+
+        @Override
+        public boolean isValid() {
+            return valid && !closed;
+        }
+
+        @Override
+        public synchronized List<WatchEvent<?>> pollEvents() {
+            List<WatchEvent<?>> events = new ArrayList<>(pendingEvents);
+            pendingEvents.clear();
+            return events;
+        }
+
+        @Override
+        public synchronized boolean reset() {
+            if (!isValid()) {
+                return false;
+            }
+            signalled = false;
+            if (!pendingEvents.isEmpty()) {
+                signalled = true;
+                signalledKeys.offer(this);
+            }
+            return true;
+        }
+
+        @Override
+        public void cancel() {
+            valid = false;
+            ScheduledFuture<?> scheduled = future;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+
+        @Override
+        public Watchable watchable() {
+            return directory;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package io.github.filesystemwatcher;
+
+import io.github.filesystemwatcher.FilesystemConstraints.FileType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+
+import static io.github.filesystemwatcher.FilesystemEventType.DELETED;
+
+// FilesystemConstraints compiled once: file types into an EnumSet, substrings into one automaton and patterns into one alternation.
+// Filenames are matched as a region of the cached path string, so testing an event does not allocate besides reading attributes.
+class ConstraintsMatcher {
+
+    private static final FileType[] FILE_TYPES = FileType.values();
+    private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\[1-9]|\\\\k<");
+
+    private final EnumSet<FileType> fileTypes;
+    private final SubstringAutomaton substrings;
+    private final List<Pattern> patterns;
+    private final ThreadLocal<Matcher[]> matchers;
+    private final List<PathMatcher> includeGlobs;
+    private final List<PathMatcher> excludeGlobs;
+
+    ConstraintsMatcher(FilesystemConstraints constraints) {
+        List<FileType> fileTypes = constraints.getFileTypes();
+        List<String> filenameSubstrings = constraints.getFilenameSubstrings();
+        this.fileTypes = fileTypes.isEmpty() ? EnumSet.noneOf(FileType.class) : EnumSet.copyOf(fileTypes);
+        this.substrings = filenameSubstrings.isEmpty() ? null : new SubstringAutomaton(filenameSubstrings);
+        this.patterns = combine(constraints.getFilenamePatterns());
+        this.includeGlobs = compileGlobs(constraints.getIncludeGlobs());
+        this.excludeGlobs = compileGlobs(constraints.getExcludeGlobs());
+        this.matchers = ThreadLocal.withInitial(() -> patterns.stream()
+                .map(pattern -> pattern.matcher(""))
+                .toArray(Matcher[]::new));
+    }
+
+    boolean test(FilesystemEvent event) {
+        Path path = event.getPath();
+        if (!fileTypes.isEmpty() && event.getEventType() != DELETED && !fileTypes.contains(fileType(event))) {
+            return false;
+        }
+
+        String pathString = path.toString();
+        int start = pathString.lastIndexOf(path.getFileSystem().getSeparator().charAt(0)) + 1;
+        if (substrings != null && !substrings.containsAny(pathString, start)) {
+            return false;
+        }
+        return patterns.isEmpty() || matchesAny(pathString, start);
+    }
+
+    boolean isIncluded(Path relativePath) {
+        return includeGlobs.isEmpty() || matchesAny(includeGlobs, relativePath);
+    }
+
+    boolean isExcluded(Path relativePath) {
+        return matchesAny(excludeGlobs, relativePath);
+    }
+
+    private static boolean matchesAny(List<PathMatcher> globs, Path relativePath) {
+        for (PathMatcher glob : globs) {
+            if (glob.matches(relativePath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<PathMatcher> compileGlobs(List<String> globs) {
+        if (globs == null) {
+            return List.of();
+        }
+        return globs.stream()
+                .map(glob -> FileSystems.getDefault().getPathMatcher("glob:" + glob))
+                .collect(Collectors.toList());
+    }
+
+    private boolean matchesAny(String pathString, int start) {
+        for (Matcher matcher : matchers.get()) {
+            if (matcher.reset(pathString).region(start, pathString.length()).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static FileType fileType(FilesystemEvent event) {
+        try {
+            BasicFileAttributes attributes = event.getAttributes().orElse(null);
+            if (attributes == null) {
+                attributes = Files.readAttributes(event.getPath(), BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            }
+            for (FileType fileType : FILE_TYPES) {
+                if (fileType.test(attributes)) {
+                    return fileType;
+                }
+            }
+            return FileType.OTHER;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Patterns with back references or clashing group names cannot be joined, so they are matched one by one.
+    private static List<Pattern> combine(List<Pattern> patterns) {
+        if (patterns.size() < 2 || patterns.stream().anyMatch(ConstraintsMatcher::isNotCombinable)) {
+            return patterns;
+        }
+        try {
+            return List.of(Pattern.compile(patterns.stream()
+                    .map(ConstraintsMatcher::inline)
+                    .collect(Collectors.joining("|"))));
+        } catch (PatternSyntaxException e) {
+            return patterns;
+        }
+    }
+
+    private static boolean isNotCombinable(Pattern pattern) {
+        return (pattern.flags() & Pattern.CANON_EQ) != 0 || BACK_REFERENCE.matcher(pattern.pattern()).find();
+    }
+
+    private static String inline(Pattern pattern) {
+        int flags = pattern.flags();
+        String regex = (flags & Pattern.LITERAL) != 0 ? Pattern.quote(pattern.pattern()) : pattern.pattern();
+        StringBuilder inlineFlags = new StringBuilder();
+        appendFlag(inlineFlags, flags, Pattern.CASE_INSENSITIVE, 'i');
+        appendFlag(inlineFlags, flags, Pattern.UNIX_LINES, 'd');
+        appendFlag(inlineFlags, flags, Pattern.MULTILINE, 'm');
+        appendFlag(inlineFlags, flags, Pattern.DOTALL, 's');
+        appendFlag(inlineFlags, flags, Pattern.UNICODE_CASE, 'u');
+        appendFlag(inlineFlags, flags, Pattern.COMMENTS, 'x');
+        appendFlag(inlineFlags, flags, Pattern.UNICODE_CHARACTER_CLASS, 'U');
+        // A line break ends a comment started in COMMENTS mode before the group is closed.
+        return "(?" + inlineFlags + ":" + regex + ((flags & Pattern.COMMENTS) != 0 ? "\n)" : ")");
+    }
+
+    private static void appendFlag(StringBuilder inlineFlags, int flags, int flag, char symbol) {
+        if ((flags & flag) != 0) {
+            inlineFlags.append(symbol);
+        }
+    }
+
+    // Aho-Corasick automaton with failure links folded into a full transition table over the characters used by substrings.
+    private static class SubstringAutomaton {
+
+        private final char[] alphabet;
+        private final int[][] transitions;
+        private final boolean[] accepting;
+
+        SubstringAutomaton(List<String> substrings) {
+            TreeSet<Character> characters = new TreeSet<>();
+            substrings.forEach(substring -> substring.chars().forEach(character -> characters.add((char) character)));
+            alphabet = new char[characters.size()];
+            int column = 0;
+            for (char character : characters) {
+                alphabet[column++] = character;
+            }
+
+            List<int[]> trie = new ArrayList<>();
+            List<Boolean> terminal = new ArrayList<>();
+            trie.add(newState());
+            terminal.add(false);
+            for (String substring : substrings) {
+                int state = 0;
+                for (int i = 0; i < substring.length(); i++) {
+                    int symbol = symbol(substring.charAt(i));
+                    if (trie.get(state)[symbol] < 0) {
+                        trie.get(state)[symbol] = trie.size();
+                        trie.add(newState());
+                        terminal.add(false);
+                    }
+                    state = trie.get(state)[symbol];
+                }
+                terminal.set(state, true);
+            }
+
+            transitions = trie.toArray(new int[0][]);
+            accepting = new boolean[transitions.length];
+            for (int state = 0; state < accepting.length; state++) {
+                accepting[state] = terminal.get(state);
+            }
+            int[] failures = new int[transitions.length];
+            Queue<Integer> states = new ArrayDeque<>();
+            for (int symbol = 0; symbol < alphabet.length; symbol++) {
+                int child = transitions[0][symbol];
+                if (child < 0) {
+                    transitions[0][symbol] = 0;
+                } else {
+                    states.add(child);
+                }
+            }
+            while (!states.isEmpty()) {
+                int state = states.poll();
+                accepting[state] |= accepting[failures[state]];
+                for (int symbol = 0; symbol < alphabet.length; symbol++) {
+                    int child = transitions[state][symbol];
+                    int fallback = transitions[failures[state]][symbol];
+                    if (child < 0) {
+                        transitions[state][symbol] = fallback;
+                    } else {
+                        failures[child] = fallback;
+                        states.add(child);
+                    }
+                }
+            }
+        }
+
+        boolean containsAny(String text, int start) {
+            int state = 0;
+            if (accepting[state]) {
+                return true;
+            }
+            for (int i = start; i < text.length(); i++) {
+                int symbol = symbol(text.charAt(i));
+                state = symbol < 0 ? 0 : transitions[state][symbol];
+                if (accepting[state]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int symbol(char character) {
+            int symbol = Arrays.binarySearch(alphabet, character);
+            return symbol < 0 ? -1 : symbol;
+        }
+
+        private int[] newState() {
+            int[] state = new int[alphabet.length];
+            Arrays.fill(state, -1);
+            return state;
+        }
+    }
+}
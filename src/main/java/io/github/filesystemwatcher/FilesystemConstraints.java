@@ -1,23 +1,21 @@
 package io.github.filesystemwatcher;
 
+import lombok.AccessLevel;
 import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.ToString;
 import lombok.Value;
 import lombok.With;
 import lombok.experimental.Wither;
 
-import java.io.IOException;
-import java.io.UncheckedIOException;
-import java.nio.file.Files;
-import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.List;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 
-import static io.github.filesystemwatcher.FilesystemEventType.DELETED;
-
 @Value
 @Builder
 @With
@@ -31,50 +29,43 @@ public class FilesystemConstraints implements Predicate<FilesystemEvent> {
         OTHER(BasicFileAttributes::isOther);
 
         private final Predicate<BasicFileAttributes> predicate;
+
+        boolean test(BasicFileAttributes attributes) {
+            return predicate.test(attributes);
+        }
     }
 
     public static final FilesystemConstraints DEFAULT = FilesystemConstraints.builder().build()
             .withFilenamePatterns(List.of())
             .withFilenameSubstrings(List.of())
             .withFileTypes(List.of())
+            .withIncludeGlobs(List.of())
+            .withExcludeGlobs(List.of())
             .withRecursive(false);
 
     private final List<String> filenameSubstrings;
     private final List<Pattern> filenamePatterns;
     private final List<FileType> fileTypes;
+    // Globs are matched against paths relative to the watched path. Excluded directories are neither read nor watched.
+    private final List<String> includeGlobs;
+    private final List<String> excludeGlobs;
     private final boolean isRecursive;
 
+    @Getter(value = AccessLevel.PRIVATE, lazy = true)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final ConstraintsMatcher matcher = new ConstraintsMatcher(this);
+
     @Override
     public boolean test(FilesystemEvent event) {
-        Path path = event.getPath();
-        if (!fileTypes.isEmpty() && event.getEventType() != DELETED) {
-            BasicFileAttributes fileAttributes = readAttributes(path);
-            if (fileTypes.stream().noneMatch(fileType -> fileType.predicate.test(fileAttributes))) {
-                return false;
-            }
-        }
-
-        String filename = path.getFileName().toString();
-        if (!filenameSubstrings.isEmpty()) {
-            if (filenameSubstrings.stream().noneMatch(filename::contains)) {
-                return false;
-            }
-        }
-
-        if (!filenamePatterns.isEmpty()) {
-            if (filenamePatterns.stream().noneMatch(pattern -> pattern.matcher(filename).matches())) {
-                return false;
-            }
-        }
-        return true;
+        return getMatcher().test(event);
     }
 
-    private BasicFileAttributes readAttributes(Path path) {
-        try {
-            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
+    boolean isIncluded(Path root, Path path) {
+        return path.equals(root) || getMatcher().isIncluded(root.relativize(path));
     }
 
+    boolean isExcluded(Path root, Path path) {
+        return !path.equals(root) && getMatcher().isExcluded(root.relativize(path));
+    }
 }
@@ -0,0 +1,135 @@
+package io.github.filesystemwatcher;
+
+import lombok.Value;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+
+// A new size always means new content, so after a size change only the attributes are kept and the file is hashed again
+// when a later write keeps its size. That write cannot be compared yet and is passed on, the following ones are compared.
+// Not thread safe, the digest and the buffer are shared by all files, so it is meant to be used only by a single consuming thread.
+class FilesystemContentDigests {
+
+    private static final String ALGORITHM = "SHA-256";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Larger files are mapped into memory in chunks of this size instead of being copied through the buffer.
+    private static final long MAPPING_SIZE = 16 * 1024 * 1024;
+
+    private final NavigableMap<Path, ContentDigest> digests = new TreeMap<>();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final MessageDigest messageDigest;
+
+    FilesystemContentDigests() {
+        try {
+            messageDigest = MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(ALGORITHM + " is required by every Java platform", e);
+        }
+    }
+
+    // Returns false for MODIFIED events of files which content did not change, every other event is recorded and passed on.
+    boolean verify(FilesystemEvent event) {
+        Path path = event.getPath();
+        switch (event.getEventType()) {
+            case DELETED:
+                digests.remove(path);
+                return true;
+            case SUBTREE_DELETED:
+                FilesystemSubtrees.remove(digests, path);
+                return true;
+            case MOVED:
+                event.getPreviousPath().ifPresent(previousPath -> FilesystemSubtrees.remove(digests, previousPath));
+                break;
+            case INITIAL:
+            case CREATED:
+            case MODIFIED:
+                break;
+            default:
+                return true;
+        }
+
+        // Attributes are read again, as those of the event may come from the middle of a write, e.g. right after truncation.
+        BasicFileAttributes attributes = FilesystemEvent.readAttributes(path);
+        if (attributes == null || !attributes.isRegularFile()) {
+            digests.remove(path);
+            return true;
+        }
+        ContentDigest previous = digests.get(path);
+        if (event.getEventType() != FilesystemEventType.MODIFIED || previous == null) {
+            record(path, attributes);
+            return true;
+        }
+
+        // A write within this time from the recorded modification could keep the timestamp on filesystems with coarse timestamps.
+        long recordedSinceModified = previous.getRecordedAt() - previous.getLastModified().toMillis();
+        boolean racy = recordedSinceModified < AdaptivePollingWatchService.TIMESTAMP_GRANULARITY_MILLIS;
+        boolean sameFile = Objects.equals(previous.getFileKey(), attributes.fileKey());
+        if (sameFile && !racy && previous.getSize() == attributes.size() && previous.getLastModified().equals(attributes.lastModifiedTime())) {
+            return false;
+        }
+        if (previous.getSize() != attributes.size()) {
+            put(path, new ContentDigest(attributes.size(), attributes.lastModifiedTime(), attributes.fileKey(), System.currentTimeMillis(), null));
+            return true;
+        }
+        ContentDigest current = record(path, attributes);
+        return current == null || previous.getHash() == null || !Arrays.equals(previous.getHash(), current.getHash());
+    }
+
+    private ContentDigest record(Path path, BasicFileAttributes attributes) {
+        try {
+            long recordedAt = System.currentTimeMillis();
+            return put(path, new ContentDigest(attributes.size(), attributes.lastModifiedTime(), attributes.fileKey(), recordedAt, hash(path)));
+        } catch (IOException e) {
+            digests.remove(path);
+            return null;
+        }
+    }
+
+    private ContentDigest put(Path path, ContentDigest digest) {
+        digests.put(path, digest);
+        return digest;
+    }
+
+    private byte[] hash(Path path) throws IOException {
+        messageDigest.reset();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= MAPPING_SIZE) {
+                buffer.clear();
+                while (channel.read(buffer) > 0) {
+                    buffer.flip();
+                    messageDigest.update(buffer);
+                    buffer.clear();
+                }
+            } else {
+                for (long position = 0; position < size; position += MAPPING_SIZE) {
+                    MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAPPING_SIZE, size - position));
+                    messageDigest.update(mapped);
+                }
+            }
+        }
+        return messageDigest.digest();
+    }
+
+    @Value
+    private static class ContentDigest {
+        private final long size;
+        private final FileTime lastModified;
+        private final Object fileKey;
+        private final long recordedAt;
+        // Null while stale, after the size changed.
+        private final byte[] hash;
+    }
+}
@@ -0,0 +1,110 @@
+package io.github.filesystemwatcher;
+
+import io.github.filesystemwatcher.threads.FilesystemMonitorThreadFactory;
+import io.github.filesystemwatcher.threads.LoggingExecutorService;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Multiplexes the roots of many monitors onto one WatchService, one producer thread and a bounded consumer pool.
+// The same directory registered by several monitors yields one key, so keys are shared and cancelled with the last owner.
+@Slf4j
+public class FilesystemDispatcher implements AutoCloseable {
+
+    private final FilesystemWatcher.WatchableUtility watchableUtility = new FilesystemWatcher.WatchableUtility();
+    private final Map<WatchKey, Set<FilesystemWatcher>> keyOwners = new HashMap<>();
+    private final ExecutorService producerExecutor;
+    private final ExecutorService consumersExecutor;
+    private final ScheduledExecutorService scheduler;
+
+    @Builder
+    private FilesystemDispatcher(int consumerThreads, FilesystemPolling polling) {
+        int threads = consumerThreads > 0 ? consumerThreads : Runtime.getRuntime().availableProcessors();
+        String name = getClass().getSimpleName();
+        this.producerExecutor = new LoggingExecutorService(Executors.newSingleThreadExecutor(
+                new FilesystemMonitorThreadFactory(name + "Producer")
+        ));
+        this.consumersExecutor = new LoggingExecutorService(Executors.newFixedThreadPool(threads,
+                new FilesystemMonitorThreadFactory(name + "Consumers")
+        ));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new FilesystemMonitorThreadFactory(name + "Scheduler"));
+        watchableUtility.openWatchService(polling);
+        producerExecutor.submit(this::produceEvents);
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchableUtility.closeWatchService();
+        } finally {
+            producerExecutor.shutdownNow();
+            consumersExecutor.shutdownNow();
+            scheduler.shutdownNow();
+        }
+    }
+
+    WatchKey register(Path directory, FilesystemWatcher watcher) {
+        synchronized (keyOwners) {
+            WatchKey key = watchableUtility.registerWatchable(directory);
+            keyOwners.computeIfAbsent(key, registeredKey -> new CopyOnWriteArraySet<>()).add(watcher);
+            return key;
+        }
+    }
+
+    void unregister(WatchKey key, FilesystemWatcher watcher) {
+        synchronized (keyOwners) {
+            Set<FilesystemWatcher> owners = keyOwners.get(key);
+            if (owners == null || !owners.remove(watcher) || !owners.isEmpty()) {
+                return;
+            }
+            keyOwners.remove(key);
+            key.cancel();
+        }
+    }
+
+    void execute(Runnable task) {
+        consumersExecutor.submit(task);
+    }
+
+    void schedule(Runnable task, long delayNanos) {
+        scheduler.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void produceEvents() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                WatchKey watchedKey = watchableUtility.getWatchService().take();
+                List<WatchEvent<?>> watchEvents = watchedKey.pollEvents();
+                for (FilesystemWatcher watcher : owners(watchedKey)) {
+                    watcher.produceWatchEvents(watchedKey, watchEvents);
+                }
+                watchedKey.reset();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ClosedWatchServiceException e) {
+                return;
+            } catch (Exception e) {
+                log.error("", e);
+            }
+        }
+    }
+
+    private Set<FilesystemWatcher> owners(WatchKey key) {
+        synchronized (keyOwners) {
+            return keyOwners.getOrDefault(key, Set.of());
+        }
+    }
+}
@@ -2,21 +2,95 @@ package io.github.filesystemwatcher;
 
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 import lombok.Value;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.nio.file.WatchEvent;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
 
 @Value
-@AllArgsConstructor(access = AccessLevel.PACKAGE, staticName = "of")
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
 public class FilesystemEvent {
     private final Path path;
     private final FilesystemEventType eventType;
+    // Attributes read once when the event was created (not following links), absent for deletions or when the file was already gone.
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final BasicFileAttributes attributes;
+    // System.nanoTime() of the creation of the original event, used to measure how long it waited in the pipeline.
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    @Getter(AccessLevel.PACKAGE)
+    private final long timestamp;
+    private final Path previousPath;
+    // Queued for the directory of an overflowed watch key to rescan it, such events are consumed and never delivered.
+    @ToString.Exclude
+    @Getter(AccessLevel.PACKAGE)
+    private final boolean overflow;
 
+    public Optional<BasicFileAttributes> getAttributes() {
+        return Optional.ofNullable(attributes);
+    }
+
+    // Present only for MOVED events.
+    public Optional<Path> getPreviousPath() {
+        return Optional.ofNullable(previousPath);
+    }
+
+    boolean isDirectory() {
+        if (attributes == null || attributes.isSymbolicLink()) {
+            return Files.isDirectory(path);
+        }
+        return attributes.isDirectory();
+    }
+
+    FilesystemEvent withEventType(FilesystemEventType eventType) {
+        return new FilesystemEvent(path, eventType, eventType == FilesystemEventType.DELETED ? null : attributes, timestamp, previousPath, overflow);
+    }
+
+    FilesystemEvent movedFrom(Path previousPath) {
+        return new FilesystemEvent(path, FilesystemEventType.MOVED, attributes, timestamp, previousPath, false);
+    }
+
+    static FilesystemEvent of(Path path, FilesystemEventType eventType) {
+        return of(path, eventType, null);
+    }
+
+    static FilesystemEvent of(Path path, FilesystemEventType eventType, BasicFileAttributes attributes) {
+        return of(path, eventType, attributes, System.nanoTime());
+    }
+
+    static FilesystemEvent of(Path path, FilesystemEventType eventType, BasicFileAttributes attributes, long timestamp) {
+        return new FilesystemEvent(path, eventType, attributes, timestamp, null, false);
+    }
+
+    static FilesystemEvent overflowOf(Path directory) {
+        return overflowOf(directory, System.nanoTime());
+    }
+
+    static FilesystemEvent overflowOf(Path directory, long timestamp) {
+        return new FilesystemEvent(directory, FilesystemEventType.MODIFIED, null, timestamp, null, true);
+    }
+
+    // Resolved against the path of the watched directory instead of joining and parsing both paths as strings again.
     static FilesystemEvent of(WatchEvent event, Path path) {
-        Path watchedElement = (Path) event.context();
-        Path totalPath = Paths.get(path.toString(), watchedElement.toString());
-        return new FilesystemEvent(totalPath, FilesystemEventType.of(event.kind()));
+        Path totalPath = path.resolve((Path) event.context());
+        FilesystemEventType eventType = FilesystemEventType.of(event.kind());
+        return of(totalPath, eventType, eventType == FilesystemEventType.DELETED ? null : readAttributes(totalPath));
+    }
+
+    static BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            return null;
+        }
     }
 }
@@ -0,0 +1,107 @@
+package io.github.filesystemwatcher;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static io.github.filesystemwatcher.FilesystemEventType.*;
+
+class FilesystemEventCoalescer {
+
+    private final Map<Path, PendingEvent> pendingEvents = new LinkedHashMap<>();
+
+    void add(FilesystemEvent event, long deadline) {
+        if (event.getEventType() == SUBTREE_DELETED) {
+            removeDescendants(event.getPath());
+        }
+
+        PendingEvent pending = pendingEvents.get(event.getPath());
+        if (pending == null) {
+            pendingEvents.put(event.getPath(), new PendingEvent(event, deadline));
+            return;
+        }
+
+        // A directory created again in place of a deleted subtree is delivered after the subtree deletion.
+        if (pending.event.getEventType() == SUBTREE_DELETED && event.getEventType() == CREATED) {
+            pending.deletedSubtree = pending.event;
+            pending.event = event;
+            return;
+        }
+
+        FilesystemEventType merged = merge(pending.event.getEventType(), event.getEventType());
+        Path previousPath = pending.event.getPreviousPath().orElse(null);
+        // A file moved and then deleted is reported as deleted from where it was before the move.
+        if (previousPath != null && (merged == DELETED || merged == SUBTREE_DELETED)) {
+            pendingEvents.remove(event.getPath());
+            add(FilesystemEvent.of(previousPath, merged), pending.deadline);
+            return;
+        }
+        if (merged == null && pending.deletedSubtree != null) {
+            pending.event = pending.deletedSubtree;
+            pending.deletedSubtree = null;
+        } else if (merged == null) {
+            pendingEvents.remove(event.getPath());
+        } else if (merged == MOVED && event.getEventType() != MOVED) {
+            pending.event = event.movedFrom(previousPath);
+        } else {
+            pending.event = event.withEventType(merged);
+        }
+    }
+
+    void flush(long now, Consumer<FilesystemEvent> consumer) {
+        Iterator<Map.Entry<Path, PendingEvent>> iterator = pendingEvents.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, PendingEvent> entry = iterator.next();
+            if (entry.getValue().deadline - now > 0) {
+                return;
+            }
+            iterator.remove();
+            if (entry.getValue().deletedSubtree != null) {
+                consumer.accept(entry.getValue().deletedSubtree);
+            }
+            consumer.accept(entry.getValue().event);
+        }
+    }
+
+    boolean isEmpty() {
+        return pendingEvents.isEmpty();
+    }
+
+    long nanosToNextFlush(long now) {
+        return pendingEvents.values().iterator().next().deadline - now;
+    }
+
+    static FilesystemEventType merge(FilesystemEventType previous, FilesystemEventType next) {
+        switch (previous) {
+            case INITIAL:
+            case CREATED:
+                if (next == DELETED || next == SUBTREE_DELETED) {
+                    return null;
+                }
+                return next == MODIFIED ? previous : next;
+            case MOVED:
+                return next == MODIFIED ? previous : next;
+            case DELETED:
+                return next == CREATED ? MODIFIED : next;
+            default:
+                return next;
+        }
+    }
+
+    private void removeDescendants(Path directory) {
+        pendingEvents.keySet().removeIf(path -> !path.equals(directory) && path.startsWith(directory));
+    }
+
+    @RequiredArgsConstructor
+    private static final class PendingEvent {
+        @NonNull
+        private FilesystemEvent event;
+        private final long deadline;
+        private FilesystemEvent deletedSubtree;
+    }
+}
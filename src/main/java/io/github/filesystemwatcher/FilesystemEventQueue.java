@@ -0,0 +1,539 @@
+package io.github.filesystemwatcher;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static io.github.filesystemwatcher.FilesystemEventType.DELETED;
+
+@Slf4j
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public class FilesystemEventQueue extends AbstractQueue<FilesystemEvent> implements BlockingQueue<FilesystemEvent> {
+
+    public enum BackpressurePolicy {
+        BLOCK,
+        DROP_OLDEST,
+        COALESCE_BY_PATH,
+        SPILL_TO_DISK
+    }
+
+    @Value
+    public static class Statistics {
+        private final int capacity;
+        private final int size;
+        private final long blockedCount;
+        private final long droppedCount;
+        private final long coalescedCount;
+        private final long spilledCount;
+    }
+
+    private final int capacity;
+    private final BackpressurePolicy policy;
+    private final Path spillDirectory;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final ArrayDeque<Slot> slots = new ArrayDeque<>();
+    private final Map<Path, Slot> lastSlots = new HashMap<>();
+    // Serializes reads and writes of the spill file, which are done without holding the queue lock.
+    private final ReentrantLock spillLock = new ReentrantLock();
+
+    private EventSpill spill;
+    // Events reserved in the spill, including those which are still being written. New events go to the spill while it is
+    // not empty, so they are not taken before the older ones.
+    private int spillSize;
+    private volatile boolean spilling;
+    private int count;
+    private long blockedCount;
+    private long droppedCount;
+    private long coalescedCount;
+    private long spilledCount;
+
+    public Statistics getStatistics() {
+        lock.lock();
+        try {
+            return new Statistics(capacity, size(), blockedCount, droppedCount, coalescedCount, spilledCount);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(FilesystemEvent event) throws InterruptedException {
+        EventSpill target;
+        lock.lockInterruptibly();
+        try {
+            target = reserveSpill();
+            if (target == null && !enqueue(event)) {
+                blockedCount++;
+                do {
+                    notFull.await();
+                } while (!enqueue(event));
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (target != null) {
+            writeSpill(target, event);
+        }
+    }
+
+    @Override
+    public boolean offer(FilesystemEvent event) {
+        EventSpill target;
+        lock.lock();
+        try {
+            target = reserveSpill();
+            if (target == null) {
+                return enqueue(event);
+            }
+        } finally {
+            lock.unlock();
+        }
+        writeSpill(target, event);
+        return true;
+    }
+
+    @Override
+    public boolean offer(FilesystemEvent event, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        EventSpill target;
+        lock.lockInterruptibly();
+        try {
+            target = reserveSpill();
+            while (target == null && !enqueue(event)) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (target != null) {
+            writeSpill(target, event);
+        }
+        return true;
+    }
+
+    @Override
+    public FilesystemEvent take() throws InterruptedException {
+        refill();
+        lock.lockInterruptibly();
+        try {
+            FilesystemEvent event;
+            while ((event = dequeue()) == null) {
+                notEmpty.await();
+            }
+            return event;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public FilesystemEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        refill();
+        lock.lockInterruptibly();
+        try {
+            FilesystemEvent event;
+            while ((event = dequeue()) == null) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return event;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public FilesystemEvent poll() {
+        refill();
+        lock.lock();
+        try {
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public FilesystemEvent peek() {
+        lock.lock();
+        try {
+            return slots.stream()
+                    .map(slot -> slot.event)
+                    .filter(Objects::nonNull)
+                    .findFirst()
+                    .orElse(null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super FilesystemEvent> collection) {
+        return drainTo(collection, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super FilesystemEvent> collection, int maxElements) {
+        int drained = 0;
+        while (drained < maxElements) {
+            int previouslyDrained = drained;
+            refill();
+            lock.lock();
+            try {
+                FilesystemEvent event;
+                while (drained < maxElements && (event = dequeue()) != null) {
+                    collection.add(event);
+                    drained++;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (drained == previouslyDrained) {
+                break;
+            }
+        }
+        return drained;
+    }
+
+    // Spilling queues never reject events, so like unbounded queues they report no limit.
+    @Override
+    public int remainingCapacity() {
+        if (policy == BackpressurePolicy.SPILL_TO_DISK) {
+            return Integer.MAX_VALUE;
+        }
+        lock.lock();
+        try {
+            return capacity - count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return count + spillSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Iterator<FilesystemEvent> iterator() {
+        lock.lock();
+        try {
+            List<FilesystemEvent> events = new ArrayList<>(count);
+            slots.stream()
+                    .map(slot -> slot.event)
+                    .filter(Objects::nonNull)
+                    .forEach(events::add);
+            return events.iterator();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        EventSpill cleared;
+        lock.lock();
+        try {
+            slots.clear();
+            lastSlots.clear();
+            count = 0;
+            cleared = detachSpill();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (cleared != null) {
+            closeSpill(cleared);
+        }
+    }
+
+    private boolean enqueue(FilesystemEvent event) {
+        if (count < capacity) {
+            append(event);
+            return true;
+        }
+
+        switch (policy) {
+            case DROP_OLDEST:
+                FilesystemEvent dropped = dequeue();
+                droppedCount++;
+                log.debug("Queue is full, dropped oldest event: {}", dropped);
+                append(event);
+                return true;
+            case COALESCE_BY_PATH:
+                return coalesce(event);
+            default:
+                return false;
+        }
+    }
+
+    private void append(FilesystemEvent event) {
+        Slot slot = new Slot(event.getPath(), event);
+        slots.addLast(slot);
+        count++;
+        if (policy == BackpressurePolicy.COALESCE_BY_PATH) {
+            lastSlots.put(event.getPath(), slot);
+        }
+        notEmpty.signal();
+    }
+
+    private FilesystemEvent dequeue() {
+        Slot slot;
+        while ((slot = slots.pollFirst()) != null) {
+            lastSlots.remove(slot.path, slot);
+            if (slot.event != null) {
+                count--;
+                notFull.signal();
+                return slot.event;
+            }
+        }
+        return null;
+    }
+
+    private boolean coalesce(FilesystemEvent event) {
+        Slot slot = lastSlots.get(event.getPath());
+        // Deletions and overflows have to reach the watcher, otherwise directories would not be watched or rescanned.
+        if (slot == null || slot.event == null || slot.event.getEventType() == DELETED
+                || slot.event.isOverflow() || event.isOverflow()) {
+            return false;
+        }
+
+        FilesystemEventType merged = FilesystemEventCoalescer.merge(slot.event.getEventType(), event.getEventType());
+        if (merged == null) {
+            slot.event = null;
+            lastSlots.remove(slot.path);
+            count--;
+        } else {
+            slot.event = event.withEventType(merged);
+        }
+        coalescedCount++;
+        return true;
+    }
+
+    // Returns the spill the event has to be written to after the queue lock is released, or null when it is queued in memory.
+    private EventSpill reserveSpill() {
+        if (spillSize == 0 && (count < capacity || policy != BackpressurePolicy.SPILL_TO_DISK)) {
+            return null;
+        }
+        if (spill == null) {
+            spill = new EventSpill(spillDirectory);
+            spilling = true;
+        }
+        spillSize++;
+        spilledCount++;
+        return spill;
+    }
+
+    private void writeSpill(EventSpill target, FilesystemEvent event) {
+        spillLock.lock();
+        try {
+            target.write(event);
+        } catch (UncheckedIOException e) {
+            boolean drained;
+            lock.lock();
+            try {
+                drained = spill == target && --spillSize == 0;
+                if (drained) {
+                    detachSpill();
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (drained) {
+                target.close();
+            }
+            throw e;
+        } finally {
+            spillLock.unlock();
+        }
+        refill();
+    }
+
+    // Spilled events are loaded back in batches once the memory is at most half full, so the file is not read for every
+    // taken event. Writers refill as well, as the consumer may wait for events which were still being written.
+    private void refill() {
+        if (!spilling) {
+            return;
+        }
+        spillLock.lock();
+        try {
+            EventSpill source;
+            int room;
+            lock.lock();
+            try {
+                source = spill;
+                room = capacity - count;
+                if (source == null || count > capacity / 2) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            List<FilesystemEvent> events = source.read(room);
+            EventSpill drained = null;
+            lock.lock();
+            try {
+                if (spill != source) {
+                    return;
+                }
+                events.forEach(this::append);
+                spillSize -= events.size();
+                if (spillSize == 0) {
+                    drained = detachSpill();
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (drained != null) {
+                drained.close();
+            }
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    private EventSpill detachSpill() {
+        EventSpill detached = spill;
+        spill = null;
+        spillSize = 0;
+        spilling = false;
+        return detached;
+    }
+
+    private void closeSpill(EventSpill detached) {
+        spillLock.lock();
+        try {
+            detached.close();
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    @AllArgsConstructor
+    private static final class Slot {
+        private final Path path;
+        private FilesystemEvent event;
+    }
+
+    // The file is created with the first spilled event. Attribute snapshots cannot be written, so those of spilled events are
+    // read again when the events are loaded back.
+    private static final class EventSpill {
+
+        private final Path directory;
+        private Path file;
+        private DataOutputStream output;
+        private DataInputStream input;
+        private long written;
+        private long read;
+        private boolean closed;
+
+        EventSpill(Path directory) {
+            this.directory = directory;
+        }
+
+        void write(FilesystemEvent event) {
+            if (closed) {
+                return;
+            }
+            try {
+                if (output == null) {
+                    file = Files.createTempFile(directory, "filesystem-watcher-", ".spill");
+                    output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+                    log.warn("Queue is full, spilling events to file={}", file);
+                }
+                output.writeUTF(event.getEventType().name());
+                output.writeUTF(event.getPath().toString());
+                output.writeLong(event.getTimestamp());
+                output.writeBoolean(event.getAttributes().isPresent());
+                output.writeBoolean(event.isOverflow());
+                written++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        List<FilesystemEvent> read(int maxEvents) {
+            int size = (int) Math.min(maxEvents, written - read);
+            if (closed || size <= 0) {
+                return List.of();
+            }
+            try {
+                output.flush();
+                if (input == null) {
+                    input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+                }
+                List<FilesystemEvent> events = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    FilesystemEventType eventType = FilesystemEventType.valueOf(input.readUTF());
+                    Path path = Paths.get(input.readUTF());
+                    long timestamp = input.readLong();
+                    BasicFileAttributes attributes = input.readBoolean() ? FilesystemEvent.readAttributes(path) : null;
+                    events.add(input.readBoolean()
+                            ? FilesystemEvent.overflowOf(path, timestamp)
+                            : FilesystemEvent.of(path, eventType, attributes, timestamp));
+                }
+                read += size;
+                return events;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void close() {
+            closed = true;
+            if (file == null) {
+                return;
+            }
+            try {
+                output.close();
+                if (input != null) {
+                    input.close();
+                }
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.error("Cannot remove spill file={}", file, e);
+            }
+        }
+    }
+}
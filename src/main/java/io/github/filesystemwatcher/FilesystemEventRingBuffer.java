@@ -0,0 +1,234 @@
+package io.github.filesystemwatcher;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Bounded lock-free queue over preallocated slots. Every slot carries a sequence number telling whether it is ready
+// to be written at a given position or to be read, so producers and consumers only compete for the position counters.
+// Any number of producers is supported (reader and watcher threads), and consumers may also race, e.g. clear() on stop.
+public class FilesystemEventRingBuffer extends AbstractQueue<FilesystemEvent> implements BlockingQueue<FilesystemEvent> {
+
+    public enum WaitStrategy {
+        SPIN,
+        YIELD,
+        PARK
+    }
+
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final FilesystemEvent[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final WaitStrategy waitStrategy;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    private volatile Thread parkedConsumer;
+
+    FilesystemEventRingBuffer(int capacity, WaitStrategy waitStrategy) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.slots = new FilesystemEvent[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.waitStrategy = waitStrategy;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    @Override
+    public boolean offer(FilesystemEvent event) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = event;
+                    sequences.set(index, position + 1);
+                    wakeConsumer();
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    @Override
+    public FilesystemEvent poll() {
+        long position = head.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    FilesystemEvent event = slots[index];
+                    slots[index] = null;
+                    sequences.set(index, position + mask + 1);
+                    return event;
+                }
+                position = head.get();
+            } else if (difference < 0) {
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    @Override
+    public void put(FilesystemEvent event) throws InterruptedException {
+        while (!offer(event)) {
+            await(Long.MAX_VALUE);
+        }
+    }
+
+    @Override
+    public boolean offer(FilesystemEvent event, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!offer(event)) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            await(remaining);
+        }
+        return true;
+    }
+
+    @Override
+    public FilesystemEvent take() throws InterruptedException {
+        FilesystemEvent event;
+        while ((event = pollOrPark(Long.MAX_VALUE)) == null) {
+            checkInterrupted();
+        }
+        return event;
+    }
+
+    @Override
+    public FilesystemEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        FilesystemEvent event;
+        while ((event = pollOrPark(deadline - System.nanoTime())) == null) {
+            checkInterrupted();
+            if (deadline - System.nanoTime() <= 0) {
+                return null;
+            }
+        }
+        return event;
+    }
+
+    @Override
+    public FilesystemEvent peek() {
+        long position = head.get();
+        int index = (int) position & mask;
+        return sequences.get(index) == position + 1 ? slots[index] : null;
+    }
+
+    @Override
+    public int drainTo(Collection<? super FilesystemEvent> collection) {
+        return drainTo(collection, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super FilesystemEvent> collection, int maxElements) {
+        int drained = 0;
+        FilesystemEvent event;
+        while (drained < maxElements && (event = poll()) != null) {
+            collection.add(event);
+            drained++;
+        }
+        return drained;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return slots.length - size();
+    }
+
+    @Override
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(slots.length, size));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return peek() == null;
+    }
+
+    @Override
+    public Iterator<FilesystemEvent> iterator() {
+        List<FilesystemEvent> events = new ArrayList<>(size());
+        for (long position = head.get(), end = tail.get(); position < end; position++) {
+            FilesystemEvent event = slots[(int) position & mask];
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        return events.iterator();
+    }
+
+    private FilesystemEvent pollOrPark(long nanos) throws InterruptedException {
+        FilesystemEvent event = poll();
+        if (event != null || waitStrategy != WaitStrategy.PARK) {
+            if (event == null) {
+                await(nanos);
+            }
+            return event;
+        }
+        // The producer unparks the registered consumer after publishing, so checking again after registration avoids a lost wakeup.
+        parkedConsumer = Thread.currentThread();
+        try {
+            event = poll();
+            if (event == null) {
+                LockSupport.parkNanos(this, nanos);
+            }
+        } finally {
+            parkedConsumer = null;
+        }
+        return event;
+    }
+
+    private void await(long nanos) throws InterruptedException {
+        checkInterrupted();
+        switch (waitStrategy) {
+            case SPIN:
+                Thread.onSpinWait();
+                break;
+            case YIELD:
+                Thread.yield();
+                break;
+            case PARK:
+                LockSupport.parkNanos(this, Math.min(nanos, PARK_NANOS));
+                break;
+        }
+    }
+
+    private void wakeConsumer() {
+        if (waitStrategy == WaitStrategy.PARK) {
+            Thread consumer = parkedConsumer;
+            if (consumer != null) {
+                LockSupport.unpark(consumer);
+            }
+        }
+    }
+
+    private static void checkInterrupted() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+}
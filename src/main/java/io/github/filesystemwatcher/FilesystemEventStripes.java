@@ -0,0 +1,61 @@
+package io.github.filesystemwatcher;
+
+import io.github.filesystemwatcher.threads.FilesystemMonitorThreadFactory;
+import io.github.filesystemwatcher.threads.LoggingExecutorService;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+// Events of one path (or of one parent directory) always land on the same stripe, and every stripe is consumed by one thread,
+// so their order is kept while unrelated paths are delivered concurrently. Full stripes block the dispatching thread.
+class FilesystemEventStripes {
+
+    private static final int STRIPE_CAPACITY = 1024;
+
+    private final List<BlockingQueue<FilesystemEvent>> stripes = new ArrayList<>();
+    private final boolean stripeByParent;
+    private final Consumer<FilesystemEvent> consumer;
+    private final ExecutorService executor;
+
+    FilesystemEventStripes(int count, boolean stripeByParent, Consumer<FilesystemEvent> consumer) {
+        this.stripeByParent = stripeByParent;
+        this.consumer = consumer;
+        this.executor = new LoggingExecutorService(Executors.newFixedThreadPool(count,
+                new FilesystemMonitorThreadFactory(getClass().getSimpleName())
+        ));
+        for (int i = 0; i < count; i++) {
+            BlockingQueue<FilesystemEvent> stripe = new ArrayBlockingQueue<>(STRIPE_CAPACITY);
+            stripes.add(stripe);
+            executor.submit(() -> consumeStripe(stripe));
+        }
+    }
+
+    void dispatch(FilesystemEvent event) throws InterruptedException {
+        stripes.get(Math.floorMod(stripeKey(event.getPath()).hashCode(), stripes.size())).put(event);
+    }
+
+    void close() {
+        executor.shutdownNow();
+    }
+
+    private Path stripeKey(Path path) {
+        Path parent = path.getParent();
+        return stripeByParent && parent != null ? parent : path;
+    }
+
+    private void consumeStripe(BlockingQueue<FilesystemEvent> stripe) {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                consumer.accept(stripe.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
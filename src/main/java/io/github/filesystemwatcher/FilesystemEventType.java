@@ -12,7 +12,13 @@ public enum FilesystemEventType {
     INITIAL,
     CREATED,
     DELETED,
-    MODIFIED;
+    MODIFIED,
+    // Replaces DELETED of a watched directory when subtree deletion is enabled. Everything below the path is gone as well.
+    SUBTREE_DELETED,
+    // Replaces DELETED and CREATED of the same file when move detection is enabled, the previous path is kept in the event.
+    MOVED,
+    // Emitted once a created, modified or moved regular file has not changed for the ready interval, e.g. its write completed.
+    READY;
 
     private static final Map<WatchEvent.Kind, FilesystemEventType> CORRESPONDING_WATCH_KINDS = Map.of(
             StandardWatchEventKinds.ENTRY_CREATE, FilesystemEventType.CREATED,
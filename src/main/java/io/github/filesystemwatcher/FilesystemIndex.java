@@ -0,0 +1,140 @@
+package io.github.filesystemwatcher;
+
+import lombok.Value;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+import static io.github.filesystemwatcher.FilesystemEventType.DELETED;
+import static io.github.filesystemwatcher.FilesystemEventType.SUBTREE_DELETED;
+
+// Entries are stored by file name under their parent directory, so full paths are only kept for directories.
+// Updates are expected from a single thread, queries can be done concurrently.
+public class FilesystemIndex {
+
+    @Value
+    public static class Entry {
+        private final long size;
+        private final long lastModified;
+        private final boolean directory;
+        private final Object fileKey;
+
+        static Entry of(BasicFileAttributes attributes) {
+            return new Entry(attributes.size(), attributes.lastModifiedTime().toMillis(), attributes.isDirectory(), attributes.fileKey());
+        }
+    }
+
+    private final Map<Path, Map<String, Entry>> entriesByDirectory = new ConcurrentHashMap<>();
+    private final AtomicLong count = new AtomicLong();
+
+    public Optional<Entry> lookup(Path path) {
+        return Optional.ofNullable(get(path));
+    }
+
+    public Map<Path, Entry> listChildren(Path directory) {
+        Map<String, Entry> children = entriesByDirectory.getOrDefault(directory, Map.of());
+        Map<Path, Entry> result = new HashMap<>(children.size());
+        children.forEach((name, entry) -> result.put(directory.resolve(name), entry));
+        return result;
+    }
+
+    public long count() {
+        return count.get();
+    }
+
+    void update(FilesystemEvent event) {
+        Path path = event.getPath();
+        if (event.getEventType() == DELETED || event.getEventType() == SUBTREE_DELETED) {
+            remove(path);
+            return;
+        }
+
+        event.getPreviousPath().ifPresent(this::remove);
+        Entry entry = read(event);
+        if (entry == null) {
+            remove(path);
+        } else {
+            put(path, entry);
+        }
+    }
+
+    Entry read(FilesystemEvent event) {
+        return event.getAttributes().map(Entry::of).orElseGet(() -> read(event.getPath()));
+    }
+
+    Entry read(Path path) {
+        try {
+            return Entry.of(Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    void put(Path path, Entry entry) {
+        Entry previous = entriesByDirectory.computeIfAbsent(path.getParent(), directory -> new ConcurrentHashMap<>())
+                .put(path.getFileName().toString(), entry);
+        if (previous == null) {
+            count.incrementAndGet();
+        } else if (previous.isDirectory() && !entry.isDirectory()) {
+            removeChildren(path);
+        }
+    }
+
+    void remove(Path path) {
+        Map<String, Entry> siblings = entriesByDirectory.get(path.getParent());
+        if (siblings != null && siblings.remove(path.getFileName().toString()) != null) {
+            count.decrementAndGet();
+        }
+        removeChildren(path);
+    }
+
+    Entry get(Path path) {
+        Map<String, Entry> siblings = entriesByDirectory.get(path.getParent());
+        return siblings == null ? null : siblings.get(path.getFileName().toString());
+    }
+
+    void forEach(BiConsumer<Path, Entry> action) {
+        entriesByDirectory.forEach((directory, children) ->
+                children.forEach((name, entry) -> action.accept(directory.resolve(name), entry)));
+    }
+
+    List<Path> list(Path directory, boolean recursive) {
+        List<Path> paths = new ArrayList<>();
+        list(directory, recursive, paths);
+        return paths;
+    }
+
+    private void removeChildren(Path directory) {
+        Map<String, Entry> children = entriesByDirectory.remove(directory);
+        if (children == null) {
+            return;
+        }
+        count.addAndGet(-children.size());
+        children.forEach((name, entry) -> removeChildren(directory.resolve(name)));
+    }
+
+    private void list(Path directory, boolean recursive, List<Path> paths) {
+        Map<String, Entry> children = entriesByDirectory.get(directory);
+        if (children == null) {
+            return;
+        }
+        children.forEach((name, entry) -> {
+            Path path = directory.resolve(name);
+            paths.add(path);
+            if (recursive && entry.isDirectory()) {
+                list(path, true, paths);
+            }
+        });
+    }
+}
@@ -0,0 +1,198 @@
+package io.github.filesystemwatcher;
+
+import lombok.Value;
+
+import java.beans.ConstructorProperties;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+// Counters and latencies of one monitor. Everything is updated without locks, so it stays enabled on the hot path.
+public class FilesystemMetrics implements FilesystemMetricsMXBean {
+
+    @Value
+    public static class Latency {
+        private final long count;
+        private final long meanMicros;
+        private final long p50Micros;
+        private final long p99Micros;
+        private final long p999Micros;
+        private final long maxMicros;
+
+        @ConstructorProperties({"count", "meanMicros", "p50Micros", "p99Micros", "p999Micros", "maxMicros"})
+        public Latency(long count, long meanMicros, long p50Micros, long p99Micros, long p999Micros, long maxMicros) {
+            this.count = count;
+            this.meanMicros = meanMicros;
+            this.p50Micros = p50Micros;
+            this.p99Micros = p99Micros;
+            this.p999Micros = p999Micros;
+            this.maxMicros = maxMicros;
+        }
+    }
+
+    private final LongAdder producedEvents = new LongAdder();
+    private final LongAdder filteredEvents = new LongAdder();
+    private final Map<FilesystemEventType, LongAdder> deliveredEvents = new EnumMap<>(FilesystemEventType.class);
+    private final LongAdder overflows = new LongAdder();
+    private final LongAdder watchRegistrations = new LongAdder();
+    private final LatencyHistogram watchToQueue = new LatencyHistogram();
+    private final LatencyHistogram queueToConsumer = new LatencyHistogram();
+    private final LatencyHistogram consumerExecution = new LatencyHistogram();
+
+    private volatile IntSupplier queueDepth = () -> 0;
+    private volatile IntSupplier watchedDirectories = () -> 0;
+
+    public FilesystemMetrics() {
+        for (FilesystemEventType eventType : FilesystemEventType.values()) {
+            deliveredEvents.put(eventType, new LongAdder());
+        }
+    }
+
+    @Override
+    public long getProducedEvents() {
+        return producedEvents.sum();
+    }
+
+    @Override
+    public long getFilteredEvents() {
+        return filteredEvents.sum();
+    }
+
+    @Override
+    public Map<String, Long> getDeliveredEvents() {
+        Map<String, Long> delivered = new LinkedHashMap<>();
+        deliveredEvents.forEach((eventType, count) -> delivered.put(eventType.name(), count.sum()));
+        return delivered;
+    }
+
+    @Override
+    public long getOverflows() {
+        return overflows.sum();
+    }
+
+    @Override
+    public long getWatchRegistrations() {
+        return watchRegistrations.sum();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    @Override
+    public int getWatchedDirectories() {
+        return watchedDirectories.getAsInt();
+    }
+
+    // Measured from taking the signalled watch key to putting its event into the queue, as kernel timestamps are not available.
+    @Override
+    public Latency getWatchToQueueLatency() {
+        return watchToQueue.snapshot();
+    }
+
+    @Override
+    public Latency getQueueToConsumerLatency() {
+        return queueToConsumer.snapshot();
+    }
+
+    @Override
+    public Latency getConsumerExecutionTime() {
+        return consumerExecution.snapshot();
+    }
+
+    void recordProduced() {
+        producedEvents.increment();
+    }
+
+    void recordFiltered() {
+        filteredEvents.increment();
+    }
+
+    void recordDelivered(FilesystemEventType eventType) {
+        deliveredEvents.get(eventType).increment();
+    }
+
+    void recordOverflow() {
+        overflows.increment();
+    }
+
+    void recordWatchRegistration() {
+        watchRegistrations.increment();
+    }
+
+    void recordWatchToQueue(long nanos) {
+        watchToQueue.record(nanos);
+    }
+
+    void recordQueueToConsumer(long nanos) {
+        queueToConsumer.record(nanos);
+    }
+
+    void recordConsumerExecution(long nanos) {
+        consumerExecution.record(nanos);
+    }
+
+    void setQueueDepth(IntSupplier queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    void setWatchedDirectories(IntSupplier watchedDirectories) {
+        this.watchedDirectories = watchedDirectories;
+    }
+
+    // Buckets grow by powers of two, so percentiles are reported with the upper bound of their bucket.
+    private static final class LatencyHistogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE);
+        private final LongAdder total = new LongAdder();
+        private final LongAdder count = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos) {
+            long value = Math.max(0, nanos);
+            buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(value));
+            total.add(value);
+            count.increment();
+            max.accumulate(value);
+        }
+
+        Latency snapshot() {
+            long[] counts = new long[buckets.length()];
+            long recorded = 0;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets.get(i);
+                recorded += counts[i];
+            }
+            if (recorded == 0) {
+                return new Latency(0, 0, 0, 0, 0, 0);
+            }
+            long max = this.max.get();
+            return new Latency(recorded,
+                    toMicros(total.sum() / Math.max(1, count.sum())),
+                    toMicros(percentile(counts, recorded, max, 0.5)),
+                    toMicros(percentile(counts, recorded, max, 0.99)),
+                    toMicros(percentile(counts, recorded, max, 0.999)),
+                    toMicros(max));
+        }
+
+        private static long percentile(long[] counts, long recorded, long max, double quantile) {
+            long rank = (long) Math.ceil(recorded * quantile);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return i == 0 ? 0 : i == Long.SIZE - 1 ? max : Math.min(max, (1L << i) - 1);
+                }
+            }
+            return max;
+        }
+
+        private static long toMicros(long nanos) {
+            return nanos / 1000;
+        }
+    }
+}
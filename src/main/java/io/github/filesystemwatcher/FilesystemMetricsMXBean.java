@@ -0,0 +1,26 @@
+package io.github.filesystemwatcher;
+
+import java.util.Map;
+
+public interface FilesystemMetricsMXBean {
+
+    long getProducedEvents();
+
+    long getFilteredEvents();
+
+    Map<String, Long> getDeliveredEvents();
+
+    long getOverflows();
+
+    long getWatchRegistrations();
+
+    int getQueueDepth();
+
+    int getWatchedDirectories();
+
+    FilesystemMetrics.Latency getWatchToQueueLatency();
+
+    FilesystemMetrics.Latency getQueueToConsumerLatency();
+
+    FilesystemMetrics.Latency getConsumerExecutionTime();
+}
@@ -5,21 +5,86 @@ import io.github.filesystemwatcher.threads.LoggingExecutorService;
 import lombok.Builder;
 import lombok.experimental.NonFinal;
 
+import javax.management.JMException;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Builder
-public class FilesystemMonitor implements FilesystemNotifier {
+public class FilesystemMonitor implements FilesystemNotifier, Flow.Publisher<FilesystemEvent> {
+
+    private static final Duration STREAM_POLL_TIMEOUT = Duration.ofMillis(100);
 
     private final Path watchedPath;
     private final Consumer<FilesystemEvent> watchedConsumer;
+    private final Consumer<List<FilesystemEvent>> watchedBatchConsumer;
+    @Builder.Default
+    private final int batchSize = 1000;
+    @Builder.Default
+    private final Duration batchLinger = Duration.ZERO;
+    @Builder.Default
+    private final Duration coalescingWindow = Duration.ZERO;
     private final FilesystemConstraints watchedConstraints;
+    @Builder.Default
+    private final int readerParallelism = 1;
+    @Builder.Default
+    private final int dispatchStripes = 1;
+    @Builder.Default
+    private final boolean stripeByParent = false;
+    @Builder.Default
+    private final boolean recoverOverflow = false;
+    @Builder.Default
+    private final boolean subtreeDeletion = false;
+    @Builder.Default
+    private final boolean indexing = false;
+    @Builder.Default
+    private final boolean pullMode = false;
+    // MODIFIED events of regular files are dropped when their content stays the same. Files are hashed when read and again
+    // only when a write keeps their size.
+    @Builder.Default
+    private final boolean contentVerification = false;
+    // Deletions are delayed by this window to be paired with a creation of the same file into one MOVED event.
+    @Builder.Default
+    private final Duration moveDetectionWindow = Duration.ZERO;
+    // READY is emitted for regular files which size and modification time have not changed for this interval after a write.
+    @Builder.Default
+    private final Duration readyInterval = Duration.ZERO;
+    @Builder.Default
+    private final int queueCapacity = 100000;
+    @Builder.Default
+    private final FilesystemEventQueue.BackpressurePolicy backpressurePolicy = FilesystemEventQueue.BackpressurePolicy.BLOCK;
+    @Builder.Default
+    private final Path spillDirectory = Paths.get(System.getProperty("java.io.tmpdir"));
+    private final FilesystemEventRingBuffer.WaitStrategy ringBufferWaitStrategy;
+    private final Path snapshotFile;
+    private final FilesystemPolling polling;
+    private final FilesystemDispatcher dispatcher;
+    @Builder.Default
+    private final boolean jmxEnabled = false;
 
-    private final BlockingQueue<FilesystemEvent> queue = new ArrayBlockingQueue<>(100000);
+    private final FilesystemIndex fileIndex = new FilesystemIndex();
+    private final FilesystemMetrics metrics = new FilesystemMetrics();
+    private final FilesystemPublisher publisher = new FilesystemPublisher();
     private final ExecutorService producersExecutor = new LoggingExecutorService(Executors.newSingleThreadExecutor(
             new FilesystemMonitorThreadFactory(getClass().getSimpleName() + "Producers")
     ));
@@ -28,41 +93,202 @@ public class FilesystemMonitor implements FilesystemNotifier {
     ));
 
     @NonFinal
-    private FilesystemNotifier watcher;
+    private BlockingQueue<FilesystemEvent> queue;
+    @NonFinal
+    private FilesystemWatcher watcher;
     @NonFinal
     private FilesystemNotifier reader;
 
     @Override
     public void startWatching() {
+        queue = ringBufferWaitStrategy == null
+                ? new FilesystemEventQueue(queueCapacity, backpressurePolicy, spillDirectory)
+                : new FilesystemEventRingBuffer(queueCapacity, ringBufferWaitStrategy);
+        Map<Path, FilesystemIndex.Entry> restoredEntries = readSnapshot();
+        // Consumers are passed on as configured, so the watcher rejects the same combinations for both of them.
+        Consumer<FilesystemEvent> consumer = watchedConsumer == null
+                ? (pullMode || watchedBatchConsumer != null ? null : publisher)
+                : watchedConsumer.andThen(publisher);
 
-        watcher = FilesystemWatcher.builder()
+        FilesystemWatcher filesystemWatcher = FilesystemWatcher.builder()
                 .watchedPath(watchedPath)
                 .watchedConstraints(watchedConstraints)
-                .watchedConsumer(watchedConsumer)
+                .watchedConsumer(consumer)
+                .watchedBatchConsumer(watchedBatchConsumer == null ? null : watchedBatchConsumer.andThen(events -> events.forEach(publisher)))
+                .batchSize(batchSize)
+                .batchLinger(batchLinger)
+                .coalescingWindow(coalescingWindow)
+                .dispatchStripes(dispatchStripes)
+                .stripeByParent(stripeByParent)
+                .recoverOverflow(recoverOverflow)
+                .subtreeDeletion(subtreeDeletion)
+                .indexing(indexing || snapshotFile != null)
+                .pullMode(pullMode)
+                .contentVerification(contentVerification)
+                .moveDetectionWindow(moveDetectionWindow)
+                .readyInterval(readyInterval)
+                .fileIndex(fileIndex)
+                .restoredEntries(restoredEntries)
+                .polling(polling)
+                .dispatcher(dispatcher)
+                .publisher(pullMode ? null : publisher)
+                .metrics(metrics)
                 .producersExecutor(producersExecutor)
                 .consumersExecutor(consumersExecutor)
                 .blockingQueue(queue)
                 .build();
+        filesystemWatcher.validate();
+        registerMBean();
+        watcher = filesystemWatcher;
+
+        Set<Path> unreadPaths = ConcurrentHashMap.newKeySet();
+        if (restoredEntries != null) {
+            unreadPaths.addAll(restoredEntries.keySet());
+        }
 
         reader = FilesystemReader.builder()
                 .watchedPath(watchedPath)
                 .watchedConstraints(watchedConstraints)
-                .watchedConsumer(this::consumeEvent)
+                .watchedConsumer(event -> {
+                    unreadPaths.remove(event.getPath());
+                    consumeEvent(event);
+                })
+                .parallelism(readerParallelism)
                 .build();
 
         watcher.startWatching();
         reader.startWatching();
+
+        unreadPaths.stream()
+                .sorted(Comparator.comparingInt(Path::getNameCount).reversed())
+                .forEach(path -> consumeEvent(FilesystemEvent.of(path, FilesystemEventType.DELETED)));
     }
 
     @Override
     public void stopWatching() {
+        publisher.close();
         reader.stopWatching();
         watcher.stopWatching();
+        try {
+            writeSnapshot();
+        } finally {
+            unregisterMBean();
+        }
+    }
+
+    // Subscribers receive events delivered after subscribing and complete when watching stops. Events are kept for a subscriber
+    // until it requests them, and meanwhile the queue is not drained and fills up according to its backpressure policy.
+    @Override
+    public void subscribe(Flow.Subscriber<? super FilesystemEvent> subscriber) {
+        if (pullMode) {
+            throw new IllegalStateException("Events of " + watchedPath + " are polled in pull mode, not published to subscribers");
+        }
+        publisher.subscribe(subscriber);
+    }
+
+    // Pull mode only: returns up to maxEvents events, waiting at most the timeout for the first of them. Events read
+    // when watching starts are staged apart from the queue, so they are not limited by its capacity.
+    public List<FilesystemEvent> poll(int maxEvents, Duration timeout) throws InterruptedException {
+        if (watcher == null) {
+            throw new IllegalStateException("Watching of " + watchedPath + " has not been started");
+        }
+        return watcher.pollEvents(maxEvents, timeout);
+    }
+
+    // Pull mode only: a blocking view of the polled events. Once watching stops the events queued before are still returned,
+    // and the stream ends when none are left or the thread is interrupted.
+    public Stream<FilesystemEvent> stream() {
+        Spliterator<FilesystemEvent> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private final Deque<FilesystemEvent> events = new ArrayDeque<>();
+
+            @Override
+            public boolean tryAdvance(Consumer<? super FilesystemEvent> action) {
+                try {
+                    while (events.isEmpty()) {
+                        boolean stopped = watcher != null && watcher.isStopped();
+                        events.addAll(poll(batchSize, stopped ? Duration.ZERO : STREAM_POLL_TIMEOUT));
+                        if (stopped && events.isEmpty()) {
+                            return false;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                action.accept(events.poll());
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    public FilesystemIndex getFileIndex() {
+        return fileIndex;
+    }
+
+    public FilesystemMetrics getMetrics() {
+        return metrics;
+    }
+
+    public FilesystemEventQueue.Statistics getQueueStatistics() {
+        if (queue == null) {
+            return new FilesystemEventQueue.Statistics(queueCapacity, 0, 0, 0, 0, 0);
+        }
+        if (queue instanceof FilesystemEventQueue) {
+            return ((FilesystemEventQueue) queue).getStatistics();
+        }
+        return new FilesystemEventQueue.Statistics(queue.size() + queue.remainingCapacity(), queue.size(), 0, 0, 0, 0);
+    }
+
+    private ObjectName objectName() throws MalformedObjectNameException {
+        return new ObjectName("io.github.filesystemwatcher:type=FilesystemMonitor,path=" + ObjectName.quote(watchedPath.toString())
+                + ",id=" + Integer.toHexString(System.identityHashCode(this)));
+    }
+
+    private void registerMBean() {
+        if (!jmxEnabled) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, objectName());
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register metrics of " + watchedPath, e);
+        }
+    }
+
+    private void unregisterMBean() {
+        if (!jmxEnabled) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName());
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot unregister metrics of " + watchedPath, e);
+        }
+    }
+
+    private Map<Path, FilesystemIndex.Entry> readSnapshot() {
+        if (snapshotFile == null || !Files.exists(snapshotFile)) {
+            return null;
+        }
+        return FilesystemSnapshot.read(snapshotFile);
+    }
+
+    private void writeSnapshot() {
+        if (snapshotFile == null) {
+            return;
+        }
+        try {
+            watcher.awaitConsumer(Duration.ofSeconds(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        FilesystemSnapshot.write(snapshotFile, fileIndex);
     }
 
     private void consumeEvent(FilesystemEvent event) {
         try {
-            queue.put(event);
+            watcher.putReadEvent(event);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
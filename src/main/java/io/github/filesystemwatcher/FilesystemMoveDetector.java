@@ -0,0 +1,85 @@
+package io.github.filesystemwatcher;
+
+import lombok.RequiredArgsConstructor;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Regular files are matched by size and modification time as well as by the file key, so a reused inode is not taken for a move.
+class FilesystemMoveDetector {
+
+    // Deadlines grow with insertion, as the window is the same for all deletions.
+    private final Map<Object, PendingDeletion> pendingDeletions = new LinkedHashMap<>();
+
+    void add(FilesystemEvent deletion, FilesystemIndex.Entry entry, long deadline, Consumer<FilesystemEvent> consumer) {
+        PendingDeletion replaced = pendingDeletions.remove(entry.getFileKey());
+        if (replaced != null) {
+            consumer.accept(replaced.deletion);
+        }
+        pendingDeletions.put(entry.getFileKey(), new PendingDeletion(deletion, entry, deadline));
+    }
+
+    // Returns the deletion of the file created by the event, or null when the event is not a part of a move.
+    FilesystemEvent take(FilesystemEvent creation) {
+        BasicFileAttributes attributes = creation.getAttributes().orElse(null);
+        if (attributes == null || attributes.fileKey() == null) {
+            return null;
+        }
+        PendingDeletion pending = pendingDeletions.get(attributes.fileKey());
+        if (pending == null || !isSameFile(pending.entry, FilesystemIndex.Entry.of(attributes))) {
+            return null;
+        }
+        pendingDeletions.remove(attributes.fileKey());
+        return pending.deletion;
+    }
+
+    // Deletions of the path are passed on before anything else happens to it, e.g. a new file is created in its place.
+    void flush(Path path, Consumer<FilesystemEvent> consumer) {
+        Iterator<PendingDeletion> iterator = pendingDeletions.values().iterator();
+        while (iterator.hasNext()) {
+            PendingDeletion pending = iterator.next();
+            if (pending.deletion.getPath().equals(path)) {
+                iterator.remove();
+                consumer.accept(pending.deletion);
+            }
+        }
+    }
+
+    void flush(long now, Consumer<FilesystemEvent> consumer) {
+        Iterator<PendingDeletion> iterator = pendingDeletions.values().iterator();
+        while (iterator.hasNext()) {
+            PendingDeletion pending = iterator.next();
+            if (pending.deadline - now > 0) {
+                return;
+            }
+            iterator.remove();
+            consumer.accept(pending.deletion);
+        }
+    }
+
+    boolean isEmpty() {
+        return pendingDeletions.isEmpty();
+    }
+
+    long nanosToNextFlush(long now) {
+        return pendingDeletions.values().iterator().next().deadline - now;
+    }
+
+    private static boolean isSameFile(FilesystemIndex.Entry deleted, FilesystemIndex.Entry created) {
+        if (deleted.isDirectory() || created.isDirectory()) {
+            return deleted.isDirectory() == created.isDirectory();
+        }
+        return deleted.getSize() == created.getSize() && deleted.getLastModified() == created.getLastModified();
+    }
+
+    @RequiredArgsConstructor
+    private static final class PendingDeletion {
+        private final FilesystemEvent deletion;
+        private final FilesystemIndex.Entry entry;
+        private final long deadline;
+    }
+}
@@ -0,0 +1,22 @@
+package io.github.filesystemwatcher;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.With;
+
+import java.time.Duration;
+
+@Value
+@Builder
+@With
+public class FilesystemPolling {
+
+    public static final FilesystemPolling DEFAULT = FilesystemPolling.builder().build()
+            .withMinimalInterval(Duration.ofMillis(100))
+            .withMaximalInterval(Duration.ofSeconds(10))
+            .withParallelism(2);
+
+    private final Duration minimalInterval;
+    private final Duration maximalInterval;
+    private final int parallelism;
+}
@@ -0,0 +1,196 @@
+package io.github.filesystemwatcher;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// Hands every event to all current subscribers. Events a subscriber has not requested yet are kept for it and delivered
+// on the thread of its next request, while the watcher stops draining its queue, so the slowest subscriber decides how fast
+// events leave the queue without any thread waiting here. Events delivered before subscribing are not replayed.
+@Slf4j
+class FilesystemPublisher implements Flow.Publisher<FilesystemEvent>, Consumer<FilesystemEvent> {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition demanded = lock.newCondition();
+    private final List<EventSubscription> subscriptions = new ArrayList<>();
+
+    private boolean closed;
+    private Runnable demandListener;
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super FilesystemEvent> subscriber) {
+        EventSubscription subscription = new EventSubscription(subscriber);
+        lock.lock();
+        try {
+            subscriber.onSubscribe(subscription);
+            if (closed) {
+                subscription.cancelled = true;
+                subscriber.onComplete();
+            } else if (!subscription.cancelled) {
+                subscriptions.add(subscription);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void accept(FilesystemEvent event) {
+        lock.lock();
+        try {
+            for (EventSubscription subscription : new ArrayList<>(subscriptions)) {
+                subscription.pendingEvents.add(event);
+                subscription.deliver();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // True while some subscriber has events it has not requested yet. The listener is run once that is over.
+    boolean isSaturated() {
+        lock.lock();
+        try {
+            return subscriptions.stream().anyMatch(subscription -> !subscription.pendingEvents.isEmpty());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void setDemandListener(Runnable demandListener) {
+        lock.lock();
+        try {
+            this.demandListener = demandListener;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void awaitDemand() throws InterruptedException {
+        lock.lock();
+        try {
+            while (isSaturated()) {
+                demanded.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (EventSubscription subscription : subscriptions) {
+                subscription.cancelled = true;
+                subscription.pendingEvents.clear();
+                subscription.subscriber.onComplete();
+            }
+            subscriptions.clear();
+        } finally {
+            lock.unlock();
+        }
+        signalDemand();
+    }
+
+    private void signalDemand() {
+        Runnable listener;
+        lock.lock();
+        try {
+            if (isSaturated()) {
+                return;
+            }
+            demanded.signalAll();
+            listener = demandListener;
+        } finally {
+            lock.unlock();
+        }
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    // Guarded by the lock of the publisher, which is reentrant, so subscribers may request more from within onNext.
+    private final class EventSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super FilesystemEvent> subscriber;
+        private final Deque<FilesystemEvent> pendingEvents = new ArrayDeque<>();
+        private long demand;
+        private boolean cancelled;
+        private boolean delivering;
+
+        private EventSubscription(Flow.Subscriber<? super FilesystemEvent> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            lock.lock();
+            try {
+                if (cancelled) {
+                    return;
+                }
+                if (n <= 0) {
+                    remove();
+                    subscriber.onError(new IllegalArgumentException("Requested " + n + " events, the demand has to be positive"));
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                    deliver();
+                }
+            } finally {
+                lock.unlock();
+            }
+            signalDemand();
+        }
+
+        @Override
+        public void cancel() {
+            lock.lock();
+            try {
+                remove();
+            } finally {
+                lock.unlock();
+            }
+            signalDemand();
+        }
+
+        // A request made from within onNext only raises the demand, the loop below delivers the following events.
+        private void deliver() {
+            if (delivering) {
+                return;
+            }
+            delivering = true;
+            try {
+                while (!cancelled && demand > 0 && !pendingEvents.isEmpty()) {
+                    if (demand != Long.MAX_VALUE) {
+                        demand--;
+                    }
+                    try {
+                        subscriber.onNext(pendingEvents.poll());
+                    } catch (RuntimeException e) {
+                        log.error("Subscriber failed, cancelling its subscription", e);
+                        remove();
+                    }
+                }
+            } finally {
+                delivering = false;
+            }
+        }
+
+        private void remove() {
+            cancelled = true;
+            pendingEvents.clear();
+            subscriptions.remove(this);
+        }
+    }
+}
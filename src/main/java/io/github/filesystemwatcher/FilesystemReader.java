@@ -2,19 +2,24 @@ package io.github.filesystemwatcher;
 
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
-import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 @Slf4j
@@ -22,26 +27,62 @@ import java.util.function.Consumer;
 public class FilesystemReader implements FilesystemNotifier {
 
     private final Path watchedPath;
+    // Include and exclude globs are matched against paths relative to this root, the watched path by default.
+    private final Path rootPath;
     private final FilesystemConstraints watchedConstraints;
     private final Consumer<FilesystemEvent> watchedConsumer;
+    // Values greater than one scan directories in parallel, so watchedConsumer has to be thread safe.
+    @Builder.Default
+    private final int parallelism = 1;
+
+    private final AtomicBoolean stopped = new AtomicBoolean();
 
     @Override
     public void startWatching() {
-        ConstraintsFilteringVisitor visitor = new ConstraintsFilteringVisitor(watchedPath, watchedConstraints);
         try {
-            log.info("Reading started path={}", watchedPath);
-            Files.walkFileTree(watchedPath, visitor);
+            log.info("Reading started path={} parallelism={}", watchedPath, parallelism);
+            if (parallelism > 1) {
+                readInParallel();
+            } else {
+                Files.walkFileTree(watchedPath, new ConstraintsFilteringVisitor(watchedPath, rootPath(), watchedConstraints, watchedConsumer, stopped));
+            }
             log.info("Reading completed path={}", watchedPath);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
-
-        visitor.getEvents().forEach(watchedConsumer);
     }
 
     @Override
     public void stopWatching() {
-        // For now we do not need to implement this. Maybe later to make this class more responsive to stop.
+        stopped.set(true);
+    }
+
+    private void readInParallel() throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(watchedPath, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        if (!attributes.isDirectory()) {
+            addFilesystemEvent(watchedPath, attributes, watchedConstraints, watchedConsumer);
+            return;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new DirectoryReadingTask(watchedPath, rootPath(), watchedConstraints, watchedConsumer, stopped));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Path rootPath() {
+        return rootPath == null ? watchedPath : rootPath;
+    }
+
+    private static void addFilesystemEvent(Path path, BasicFileAttributes attributes, FilesystemConstraints constraints, Consumer<FilesystemEvent> consumer) {
+        FilesystemEvent filesystemEvent = FilesystemEvent.of(path, FilesystemEventType.INITIAL, attributes);
+
+        if (constraints.test(filesystemEvent)) {
+            log.debug("Created event: {}", filesystemEvent);
+            consumer.accept(filesystemEvent);
+        }
     }
 
     @RequiredArgsConstructor
@@ -49,19 +90,30 @@ public class FilesystemReader implements FilesystemNotifier {
     private static final class ConstraintsFilteringVisitor extends SimpleFileVisitor<Path> {
 
         private final Path watchedPatch;
+        private final Path root;
         private final FilesystemConstraints constraints;
-        @Getter
-        private final List<FilesystemEvent> events = new ArrayList<>();
+        @EqualsAndHashCode.Exclude
+        private final Consumer<FilesystemEvent> consumer;
+        @EqualsAndHashCode.Exclude
+        private final AtomicBoolean stopped;
 
         @Override
         public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
             super.preVisitDirectory(dir, attrs);
 
+            if (stopped.get()) {
+                return FileVisitResult.TERMINATE;
+            }
+
             if (dir.equals(watchedPatch)) {
                 return FileVisitResult.CONTINUE;
             }
 
-            addFilesystemEvent(dir);
+            if (constraints.isExcluded(root, dir)) {
+                return FileVisitResult.SKIP_SUBTREE;
+            }
+
+            addFilesystemEvent(dir, attrs, constraints, consumer);
 
             if (!constraints.isRecursive()) {
                 return FileVisitResult.SKIP_SUBTREE;
@@ -73,17 +125,55 @@ public class FilesystemReader implements FilesystemNotifier {
         @Override
         public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
             super.visitFile(file, attrs);
-            addFilesystemEvent(file);
+
+            if (stopped.get()) {
+                return FileVisitResult.TERMINATE;
+            }
+
+            if (!constraints.isExcluded(root, file)) {
+                addFilesystemEvent(file, attrs, constraints, consumer);
+            }
             return FileVisitResult.CONTINUE;
         }
+    }
 
-        private void addFilesystemEvent(Path path) {
-            FilesystemEvent filesystemEvent = FilesystemEvent.of(path, FilesystemEventType.INITIAL);
+    @RequiredArgsConstructor
+    private static final class DirectoryReadingTask extends RecursiveAction {
 
-            if (constraints.test(filesystemEvent)) {
-                events.add(filesystemEvent);
-                log.info("Created event: {}", filesystemEvent);
+        private static final long serialVersionUID = 1L;
+
+        private final transient Path directory;
+        private final transient Path root;
+        private final transient FilesystemConstraints constraints;
+        private final transient Consumer<FilesystemEvent> consumer;
+        private final transient AtomicBoolean stopped;
+
+        @Override
+        protected void compute() {
+            List<DirectoryReadingTask> subdirectoryTasks = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    if (stopped.get()) {
+                        break;
+                    }
+
+                    if (constraints.isExcluded(root, entry)) {
+                        continue;
+                    }
+
+                    BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    addFilesystemEvent(entry, attributes, constraints, consumer);
+
+                    if (attributes.isDirectory() && constraints.isRecursive()) {
+                        DirectoryReadingTask task = new DirectoryReadingTask(entry, root, constraints, consumer, stopped);
+                        task.fork();
+                        subdirectoryTasks.add(task);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
+            subdirectoryTasks.forEach(ForkJoinTask::join);
         }
     }
 }
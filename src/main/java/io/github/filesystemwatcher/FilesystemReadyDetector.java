@@ -0,0 +1,146 @@
+package io.github.filesystemwatcher;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Writes only move the deadline of a file: it is placed into the timer wheel slot of its new deadline when the slot of
+// the previous one comes, so every file is checked at most once per quiet interval.
+class FilesystemReadyDetector {
+
+    private static final int SLOTS = 64;
+    private static final int TICKS_PER_INTERVAL = SLOTS / 2;
+
+    private final long quietInterval;
+    private final long tickDuration;
+    private final long start = System.nanoTime();
+    private final List<List<PendingFile>> wheel = new ArrayList<>(SLOTS);
+    private final Map<Path, PendingFile> pendingFiles = new HashMap<>();
+
+    private long currentTick;
+
+    FilesystemReadyDetector(long quietInterval) {
+        this.quietInterval = quietInterval;
+        this.tickDuration = Math.max(1, quietInterval / TICKS_PER_INTERVAL);
+        for (int i = 0; i < SLOTS; i++) {
+            wheel.add(new ArrayList<>());
+        }
+    }
+
+    void track(FilesystemEvent event, long now) {
+        Path path = event.getPath();
+        switch (event.getEventType()) {
+            case DELETED:
+            case SUBTREE_DELETED:
+                pendingFiles.remove(path);
+                return;
+            case MOVED:
+                event.getPreviousPath().ifPresent(pendingFiles::remove);
+                break;
+            case CREATED:
+            case MODIFIED:
+                break;
+            default:
+                return;
+        }
+
+        BasicFileAttributes attributes = event.getAttributes().orElseGet(() -> FilesystemEvent.readAttributes(path));
+        if (attributes == null || !attributes.isRegularFile()) {
+            return;
+        }
+        PendingFile pending = pendingFiles.get(path);
+        if (pending == null) {
+            pending = new PendingFile(path);
+            pendingFiles.put(path, pending);
+            pending.update(attributes, now + quietInterval);
+            schedule(pending);
+        } else {
+            pending.update(attributes, now + quietInterval);
+        }
+    }
+
+    void advance(long now, Consumer<FilesystemEvent> consumer) {
+        long targetTick = (now - start) / tickDuration;
+        if (pendingFiles.isEmpty()) {
+            currentTick = Math.max(currentTick, targetTick);
+            return;
+        }
+        // After a long pause every slot is visited once, taking all files which deadline has passed.
+        long ticks = Math.min(targetTick - currentTick, SLOTS);
+        List<PendingFile> due = new ArrayList<>();
+        for (long tick = currentTick + 1; tick <= currentTick + ticks; tick++) {
+            Iterator<PendingFile> iterator = wheel.get((int) (tick % SLOTS)).iterator();
+            while (iterator.hasNext()) {
+                PendingFile pending = iterator.next();
+                if (pending.tick <= targetTick) {
+                    iterator.remove();
+                    due.add(pending);
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, targetTick);
+
+        for (PendingFile pending : due) {
+            if (pendingFiles.get(pending.path) != pending) {
+                continue;
+            }
+            if (pending.deadline - now > 0) {
+                schedule(pending);
+                continue;
+            }
+            BasicFileAttributes attributes = FilesystemEvent.readAttributes(pending.path);
+            if (attributes == null || !attributes.isRegularFile()) {
+                pendingFiles.remove(pending.path);
+            } else if (pending.isChanged(attributes)) {
+                pending.update(attributes, now + quietInterval);
+                schedule(pending);
+            } else {
+                pendingFiles.remove(pending.path);
+                consumer.accept(FilesystemEvent.of(pending.path, FilesystemEventType.READY, attributes));
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return pendingFiles.isEmpty();
+    }
+
+    long nanosToNextFlush(long now) {
+        return start + (currentTick + 1) * tickDuration - now;
+    }
+
+    private void schedule(PendingFile pending) {
+        long tick = Math.max(currentTick + 1, (pending.deadline - start + tickDuration - 1) / tickDuration);
+        pending.tick = tick;
+        wheel.get((int) (tick % SLOTS)).add(pending);
+    }
+
+    private static final class PendingFile {
+        private final Path path;
+        private long size;
+        private FileTime lastModified;
+        private long deadline;
+        private long tick;
+
+        private PendingFile(Path path) {
+            this.path = path;
+        }
+
+        private void update(BasicFileAttributes attributes, long deadline) {
+            this.size = attributes.size();
+            this.lastModified = attributes.lastModifiedTime();
+            this.deadline = deadline;
+        }
+
+        // Writes which were not reported in time, e.g. by a polling watch service, still postpone the file.
+        private boolean isChanged(BasicFileAttributes attributes) {
+            return size != attributes.size() || !lastModified.equals(attributes.lastModifiedTime());
+        }
+    }
+}
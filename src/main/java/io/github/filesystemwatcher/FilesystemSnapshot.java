@@ -0,0 +1,154 @@
+package io.github.filesystemwatcher;
+
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+// Layout: MAGIC, VERSION, then records of (path, size, lastModified, directory, fileKey) until the end of file.
+@Slf4j
+@UtilityClass
+class FilesystemSnapshot {
+
+    private static final int MAGIC = 0x46535753;
+    private static final int VERSION = 1;
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    static void write(Path file, FilesystemIndex index) {
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            index.forEach((path, entry) -> writeEntry(output, path, entry));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        try {
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Snapshot written file={} entries={}", file, index.count());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Returns null for a snapshot of an unknown format, so the tree is reported as INITIAL instead of as all CREATED.
+    static Map<Path, FilesystemIndex.Entry> read(Path file) {
+        Map<Path, FilesystemIndex.Entry> entries = new HashMap<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedReader reader = new MappedReader(channel);
+            if (reader.readInt() != MAGIC || reader.readInt() != VERSION) {
+                log.warn("Ignoring snapshot file={} with unknown format", file);
+                return null;
+            }
+            while (reader.hasRemaining()) {
+                Path path = Paths.get(reader.readString());
+                long size = reader.readLong();
+                long lastModified = reader.readLong();
+                boolean directory = reader.readBoolean();
+                String fileKey = reader.readString();
+                entries.put(path, new FilesystemIndex.Entry(size, lastModified, directory, fileKey.isEmpty() ? null : fileKey));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Snapshot read file={} entries={}", file, entries.size());
+        return entries;
+    }
+
+    static boolean isUnchanged(FilesystemIndex.Entry previous, FilesystemIndex.Entry current) {
+        return current != null
+                && previous.getSize() == current.getSize()
+                && previous.getLastModified() == current.getLastModified()
+                && previous.isDirectory() == current.isDirectory()
+                && Objects.equals(Objects.toString(previous.getFileKey(), null), Objects.toString(current.getFileKey(), null));
+    }
+
+    private static void writeEntry(DataOutputStream output, Path path, FilesystemIndex.Entry entry) {
+        try {
+            writeBytes(output, path.toString());
+            output.writeLong(entry.getSize());
+            output.writeLong(entry.getLastModified());
+            output.writeBoolean(entry.isDirectory());
+            writeBytes(output, Objects.toString(entry.getFileKey(), ""));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeBytes(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    // Maps the file in windows, so snapshots bigger than 2GB can be read as well.
+    private static final class MappedReader {
+
+        private final FileChannel channel;
+        private final long fileSize;
+        private long windowPosition;
+        private MappedByteBuffer buffer;
+
+        MappedReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.fileSize = channel.size();
+            map(0);
+        }
+
+        boolean hasRemaining() {
+            return windowPosition + buffer.position() < fileSize;
+        }
+
+        int readInt() throws IOException {
+            ensure(Integer.BYTES);
+            return buffer.getInt();
+        }
+
+        long readLong() throws IOException {
+            ensure(Long.BYTES);
+            return buffer.getLong();
+        }
+
+        boolean readBoolean() throws IOException {
+            ensure(1);
+            return buffer.get() != 0;
+        }
+
+        String readString() throws IOException {
+            int length = readInt();
+            ensure(length);
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                map(windowPosition + buffer.position());
+                if (buffer.remaining() < bytes) {
+                    throw new IOException("Snapshot file is truncated");
+                }
+            }
+        }
+
+        private void map(long position) throws IOException {
+            windowPosition = position;
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, fileSize - position));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package io.github.filesystemwatcher;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+final class FilesystemSubtrees {
+
+    private FilesystemSubtrees() {
+    }
+
+    // Paths starting with the path as a string are sorted right after it. Besides its descendants they include siblings
+    // such as "name-other", which are skipped. The prefix is compared ignoring case, as paths on Windows are sorted so.
+    static <V> List<V> remove(NavigableMap<Path, V> map, Path path) {
+        String prefix = path.toString();
+        List<V> values = new ArrayList<>();
+        Iterator<Map.Entry<Path, V>> entries = map.tailMap(path, true).entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Path, V> entry = entries.next();
+            if (!entry.getKey().toString().regionMatches(true, 0, prefix, 0, prefix.length())) {
+                break;
+            }
+            if (entry.getKey().startsWith(path)) {
+                values.add(entry.getValue());
+                entries.remove();
+            }
+        }
+        return values;
+    }
+}
@@ -1,19 +1,34 @@
 package io.github.filesystemwatcher;
 
 import com.sun.nio.file.SensitivityWatchEventModifier;
-import io.vavr.collection.List;
 import io.vavr.control.Try;
 import lombok.Builder;
-import lombok.Value;
+import lombok.Getter;
 import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.UncheckedIOException;
 import java.nio.file.*;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -24,139 +39,712 @@ import static java.nio.file.StandardWatchEventKinds.*;
 @Builder
 public class FilesystemWatcher implements FilesystemNotifier {
 
+    // Events held for a full queue of a watcher sharing a dispatcher, as many as the kernel queue of inotify holds by default.
+    private static final int HELD_EVENTS_LIMIT = 16384;
+
     private final WatchableUtility watchableUtility = new WatchableUtility();
 
     private final Path watchedPath;
     private final FilesystemConstraints watchedConstraints;
     private final Consumer<FilesystemEvent> watchedConsumer;
+    private final Consumer<List<FilesystemEvent>> watchedBatchConsumer;
+    @Builder.Default
+    private final int batchSize = 1000;
+    @Builder.Default
+    private final Duration batchLinger = Duration.ZERO;
+    @Builder.Default
+    private final Duration coalescingWindow = Duration.ZERO;
+    @Builder.Default
+    private final int dispatchStripes = 1;
+    @Builder.Default
+    private final boolean stripeByParent = false;
+    @Builder.Default
+    private final boolean recoverOverflow = false;
+    @Builder.Default
+    private final boolean subtreeDeletion = false;
+    @Builder.Default
+    private final boolean indexing = false;
+    @Builder.Default
+    private final boolean pullMode = false;
+    @Builder.Default
+    private final boolean contentVerification = false;
+    @Builder.Default
+    private final Duration moveDetectionWindow = Duration.ZERO;
+    @Builder.Default
+    private final Duration readyInterval = Duration.ZERO;
+    @Builder.Default
+    private final FilesystemIndex fileIndex = new FilesystemIndex();
+    private final Map<Path, FilesystemIndex.Entry> restoredEntries;
+    private final FilesystemPolling polling;
+    private final FilesystemDispatcher dispatcher;
+    private final FilesystemPublisher publisher;
+    @Builder.Default
+    private final FilesystemMetrics metrics = new FilesystemMetrics();
 
     private final BlockingQueue<FilesystemEvent> blockingQueue;
     private final ExecutorService producersExecutor;
     private final ExecutorService consumersExecutor;
 
-    private final Map<Path, WatchKey> watchedKeys = new ConcurrentHashMap<>();
+    private final NavigableMap<Path, WatchKey> watchedKeys = new ConcurrentSkipListMap<>();
+    private final List<FilesystemEvent> pendingEvents = new ArrayList<>();
+    private final Deque<FilesystemEvent> pulledEvents = new ArrayDeque<>();
+    private final Queue<FilesystemEvent> stagedEvents = new ConcurrentLinkedQueue<>();
+    private final Deque<FilesystemEvent> heldEvents = new ArrayDeque<>();
+    private final Set<Path> overflowedDirectories = new LinkedHashSet<>();
+    private final FilesystemEventCoalescer eventCoalescer = new FilesystemEventCoalescer();
+    private final FilesystemContentDigests contentDigests = new FilesystemContentDigests();
+    private final FilesystemMoveDetector moveDetector = new FilesystemMoveDetector();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final AtomicBoolean stopped = new AtomicBoolean();
 
     @NonFinal
     private Future<?> consumer;
     @NonFinal
     private Future<?> producer;
+    @NonFinal
+    private FilesystemEventStripes eventStripes;
+    @NonFinal
+    private FilesystemReadyDetector readyDetector;
 
     @Override
     public void startWatching() {
+        validate();
+        metrics.setQueueDepth(blockingQueue::size);
+        metrics.setWatchedDirectories(watchedKeys::size);
+        if (dispatchStripes > 1 && watchedBatchConsumer == null && !pullMode) {
+            eventStripes = new FilesystemEventStripes(dispatchStripes, stripeByParent, this::acceptEvent);
+        }
+        if (!readyInterval.isZero()) {
+            readyDetector = new FilesystemReadyDetector(readyInterval.toNanos());
+        }
+        if (dispatcher != null) {
+            if (publisher != null) {
+                publisher.setDemandListener(this::scheduleDrain);
+            }
+            startWatching(watchedPath);
+            return;
+        }
+        watchableUtility.openWatchService(polling);
         startWatching(watchedPath);
-        consumer = consumersExecutor.submit(this::consumeEvents);
+        if (!pullMode) {
+            consumer = consumersExecutor.submit(this::consumeEvents);
+        }
         producer = producersExecutor.submit(this::produceEvents);
     }
 
     @Override
     public void stopWatching() {
+        stopped.set(true);
+        if (eventStripes != null) {
+            eventStripes.close();
+        }
+        if (dispatcher != null) {
+            watchedKeys.values().forEach(key -> dispatcher.unregister(key, this));
+            watchedKeys.clear();
+            synchronized (heldEvents) {
+                heldEvents.clear();
+                overflowedDirectories.clear();
+            }
+            if (!pullMode) {
+                blockingQueue.clear();
+            }
+            return;
+        }
         try {
             watchableUtility.closeWatchService();
         } finally {
-            blockingQueue.clear();
+            // In pull mode events queued before stopping are left to be polled.
+            if (!pullMode) {
+                blockingQueue.clear();
+            }
             producersExecutor.shutdownNow();
             consumersExecutor.shutdownNow();
         }
     }
 
+    void validate() {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size has to be positive, configured " + batchSize);
+        }
+        if (batchLinger.isNegative()) {
+            throw new IllegalArgumentException("Batch linger cannot be negative, configured " + batchLinger);
+        }
+        if (watchedConsumer != null && watchedBatchConsumer != null) {
+            throw new IllegalStateException("Events of " + watchedPath + " are delivered either to a consumer or to a batch consumer, not both");
+        }
+        if (pullMode && (watchedConsumer != null || watchedBatchConsumer != null)) {
+            throw new IllegalStateException("Events of " + watchedPath + " are polled in pull mode, not delivered to consumers");
+        }
+    }
+
+    void putEvent(FilesystemEvent event) throws InterruptedException {
+        blockingQueue.put(event);
+        metrics.recordProduced();
+        scheduleDrain();
+    }
+
+    // Nothing polls before startWatching of the monitor returns, so in pull mode events read by it are staged without a bound
+    // instead of waiting for space in the queue. They are polled before the queued events.
+    void putReadEvent(FilesystemEvent event) throws InterruptedException {
+        if (!pullMode) {
+            putEvent(event);
+            return;
+        }
+        stagedEvents.add(event);
+        metrics.recordProduced();
+    }
+
+    // In pull mode there is no consumer thread: the calling thread drains the queue, registers new directories and runs
+    // the coalescer, and events it cannot return at once are kept for the next call. Calls are serialized.
+    synchronized List<FilesystemEvent> pollEvents(int maxEvents, Duration timeout) throws InterruptedException {
+        if (!pullMode) {
+            throw new IllegalStateException("Events of " + watchedPath + " are delivered to consumers, not polled");
+        }
+        if (maxEvents <= 0) {
+            throw new IllegalArgumentException("At least one event has to be polled, requested " + maxEvents);
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            List<FilesystemEvent> events = new ArrayList<>();
+            while (events.size() < maxEvents && !stagedEvents.isEmpty()) {
+                events.add(stagedEvents.poll());
+            }
+            blockingQueue.drainTo(events, maxEvents - events.size());
+            for (FilesystemEvent event : events) {
+                consumeEvent(event);
+            }
+            flushPendingEvents();
+
+            long remaining = deadline - System.nanoTime();
+            if (!pulledEvents.isEmpty() || remaining <= 0 || stopped.get()) {
+                break;
+            }
+            long wait = Math.min(remaining, nanosToNextFlush(System.nanoTime()));
+            FilesystemEvent event = blockingQueue.poll(Math.max(0, wait), TimeUnit.NANOSECONDS);
+            if (event != null) {
+                consumeEvent(event);
+            }
+        }
+
+        List<FilesystemEvent> polledEvents = new ArrayList<>(Math.min(maxEvents, pulledEvents.size()));
+        while (polledEvents.size() < maxEvents && !pulledEvents.isEmpty()) {
+            polledEvents.add(pulledEvents.poll());
+        }
+        return polledEvents;
+    }
+
+    boolean isStopped() {
+        return stopped.get();
+    }
+
+    boolean awaitConsumer(Duration timeout) throws InterruptedException {
+        if (pullMode) {
+            return true;
+        }
+        if (dispatcher == null) {
+            return consumersExecutor.awaitTermination(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (drainScheduled.get()) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
     private void startWatching(Path path) {
-        WatchKey key = watchableUtility.registerWatchable(path);
+        if (stopped.get()) {
+            return;
+        }
+        WatchKey key = dispatcher == null ? watchableUtility.registerWatchable(path) : dispatcher.register(path, this);
         watchedKeys.putIfAbsent(path, key);
-        log.info("Watching started: {}", path);
+        metrics.recordWatchRegistration();
+        log.debug("Watching started: {}", path);
     }
 
-    private void stopWatching(Path path) {
-        WatchKey key = watchedKeys.get(path);
-        if (key != null) {
-            key.cancel();
+    // Keys of all directories below the deleted one are cancelled too, as the system does not report their deletion reliably.
+    private boolean stopWatchingSubtree(Path path) {
+        List<WatchKey> keys = FilesystemSubtrees.remove(watchedKeys, path);
+        for (WatchKey key : keys) {
+            if (dispatcher != null) {
+                dispatcher.unregister(key, this);
+            } else {
+                key.cancel();
+            }
+        }
+        if (!keys.isEmpty()) {
+            log.debug("Watching stopped: {} directories={}", path, keys.size());
         }
-        watchedKeys.remove(path);
-        log.info("Watching stopped: {}", path);
+        return !keys.isEmpty();
     }
 
     private void produceEvents() {
         while (!Thread.currentThread().isInterrupted()) {
             try {
                 WatchKey watchedKey = watchableUtility.getWatchService().take();
+                produceWatchEvents(watchedKey, watchedKey.pollEvents());
+                watchedKey.reset();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("", e);
+            }
+        }
+    }
+
+    void produceWatchEvents(WatchKey watchedKey, List<WatchEvent<?>> watchEvents) throws InterruptedException {
+        long takenAt = System.nanoTime();
+        log.debug("Watched key: {}", watchedKey.watchable());
 
-                log.info("Watched key: {}", watchedKey.watchable());
+        for (WatchEvent<?> watchEvent : watchEvents) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
 
-                for (WatchEvent<?> watchEvent : watchedKey.pollEvents()) {
-                    if (Thread.currentThread().isInterrupted()) {
-                        return;
-                    }
+            log.debug("Watched event: {} {}", watchEvent.kind(), watchEvent.context());
 
-                    log.info("Watched event: {} {}", watchEvent.kind(), watchEvent.context());
+            Path watchedDirectory = (Path) watchedKey.watchable();
 
-                    if (watchEvent.kind() == OVERFLOW) {
-                        log.error("OVERFLOW watchEvent occurred {} times. Operating system queue was overflowed. File events could be lost.", watchEvent.count());
-                        continue;
-                    }
+            if (watchEvent.kind() == OVERFLOW) {
+                metrics.recordOverflow();
+                if (recoverOverflow) {
+                    log.warn("OVERFLOW watchEvent occurred {} times. Directory {} will be rescanned.", watchEvent.count(), watchedDirectory);
+                    produceEvent(FilesystemEvent.overflowOf(watchedDirectory), watchedDirectory);
+                } else {
+                    log.error("OVERFLOW watchEvent occurred {} times. Operating system queue was overflowed. File events could be lost.", watchEvent.count());
+                }
+                continue;
+            }
 
-                    Path watchedDirectory = (Path) watchedKey.watchable();
-                    FilesystemEvent filesystemEvent = FilesystemEvent.of(watchEvent, watchedDirectory);
+            FilesystemEvent filesystemEvent = FilesystemEvent.of(watchEvent, watchedDirectory);
 
-                    if (!watchedConstraints.test(filesystemEvent)) {
-                        continue;
-                    }
+            if (watchedConstraints.isExcluded(watchedPath, filesystemEvent.getPath()) || !watchedConstraints.test(filesystemEvent)) {
+                metrics.recordFiltered();
+                continue;
+            }
 
-                    blockingQueue.put(filesystemEvent);
+            produceEvent(filesystemEvent, watchedDirectory);
+            metrics.recordWatchToQueue(System.nanoTime() - takenAt);
+        }
+    }
+
+    private void produceEvent(FilesystemEvent event, Path watchedDirectory) throws InterruptedException {
+        if (dispatcher == null) {
+            putEvent(event);
+        } else {
+            holdEvent(event, watchedDirectory);
+        }
+    }
+
+    // The producer thread of a dispatcher serves every watcher, so it never waits for a full queue of one of them. Events
+    // which do not fit are held until the queue is drained. Beyond the limit only their directories are kept, to be rescanned
+    // as after an OVERFLOW of the kernel queue.
+    private void holdEvent(FilesystemEvent event, Path watchedDirectory) {
+        synchronized (heldEvents) {
+            if (heldEvents.isEmpty() && overflowedDirectories.isEmpty() && blockingQueue.offer(event)) {
+                metrics.recordProduced();
+            } else if (overflowedDirectories.isEmpty() && heldEvents.size() < HELD_EVENTS_LIMIT) {
+                heldEvents.add(event);
+            } else if (overflowedDirectories.add(watchedDirectory)) {
+                metrics.recordOverflow();
+                if (recoverOverflow) {
+                    log.warn("Queue of {} is full. Held events were overflowed. Directory {} will be rescanned.", watchedPath, watchedDirectory);
+                } else {
+                    log.error("Queue of {} is full. Held events were overflowed. File events of {} could be lost.", watchedPath, watchedDirectory);
                 }
-                watchedKey.reset();
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            } catch (Exception e) {
-                log.error("", e);
             }
         }
+        scheduleDrain();
+    }
+
+    private void releaseHeldEvents() {
+        synchronized (heldEvents) {
+            while (!heldEvents.isEmpty() && blockingQueue.offer(heldEvents.peek())) {
+                heldEvents.poll();
+                metrics.recordProduced();
+            }
+            if (!heldEvents.isEmpty()) {
+                return;
+            }
+            if (!recoverOverflow) {
+                overflowedDirectories.clear();
+                return;
+            }
+            Iterator<Path> directories = overflowedDirectories.iterator();
+            while (directories.hasNext() && blockingQueue.offer(FilesystemEvent.overflowOf(directories.next()))) {
+                directories.remove();
+                metrics.recordProduced();
+            }
+        }
+    }
+
+    // With a shared dispatcher there is no consumer thread per watcher. Queued events are drained by a task on the shared pool,
+    // at most one at a time, so the coalescer, pending batch and index are still confined to a single thread. While subscribers
+    // have not requested the delivered events nothing is drained, and the next request of them schedules the drain again.
+    private void scheduleDrain() {
+        if (dispatcher != null && !pullMode && !stopped.get() && drainScheduled.compareAndSet(false, true)) {
+            dispatcher.execute(this::drainEvents);
+        }
+    }
+
+    private void drainEvents() {
+        long nextFlush = Long.MAX_VALUE;
+        try {
+            if (isSaturated()) {
+                return;
+            }
+            List<FilesystemEvent> events = new ArrayList<>();
+            blockingQueue.drainTo(events, batchSize);
+            releaseHeldEvents();
+            for (FilesystemEvent event : events) {
+                consumeEvent(event);
+            }
+            flushPendingEvents();
+            deliverPendingEvents();
+            nextFlush = nanosToNextFlush(System.nanoTime());
+        } finally {
+            drainScheduled.set(false);
+        }
+        if (isSaturated()) {
+            return;
+        }
+        if (!blockingQueue.isEmpty() || nextFlush <= 0) {
+            scheduleDrain();
+        } else if (nextFlush != Long.MAX_VALUE) {
+            dispatcher.schedule(this::scheduleDrain, nextFlush);
+        }
     }
 
     private void consumeEvents() {
         while (!Thread.currentThread().isInterrupted()) {
             try {
-                FilesystemEvent event = blockingQueue.take();
-                Path path = event.getPath();
-                if (List.of(CREATED, INITIAL).contains(event.getEventType())) {
-                    if (Files.isDirectory(path)) {
-                        startWatching(path);
-                        // TODO refactor
-                        if (CREATED == event.getEventType()) {
-                            FilesystemReader.builder()
-                                    .watchedPath(path)
-                                    .watchedConstraints(watchedConstraints)
-                                    .watchedConsumer(filesystemEvent -> {
-                                        if (!watchedKeys.containsKey(filesystemEvent.getPath())) {
-                                            watchedConsumer.accept(FilesystemEvent.of(filesystemEvent.getPath(), CREATED));
-                                        }
-                                    }).build()
-                                    .startWatching();
+                if (publisher != null) {
+                    publisher.awaitDemand();
+                }
+                for (FilesystemEvent event : takeEvents()) {
+                    consumeEvent(event);
+                }
+                flushPendingEvents();
+                deliverPendingEvents();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private boolean isSaturated() {
+        return publisher != null && publisher.isSaturated();
+    }
+
+    private List<FilesystemEvent> takeEvents() throws InterruptedException {
+        List<FilesystemEvent> events = new ArrayList<>();
+        long nextFlush = nanosToNextFlush(System.nanoTime());
+        if (nextFlush == Long.MAX_VALUE) {
+            events.add(blockingQueue.take());
+        } else {
+            FilesystemEvent event = blockingQueue.poll(nextFlush, TimeUnit.NANOSECONDS);
+            if (event == null) {
+                return events;
+            }
+            events.add(event);
+        }
+        blockingQueue.drainTo(events, batchSize - events.size());
+
+        long deadline = System.nanoTime() + batchLinger.toNanos();
+        while (events.size() < batchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            FilesystemEvent event = blockingQueue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (event == null) {
+                break;
+            }
+            events.add(event);
+            blockingQueue.drainTo(events, batchSize - events.size());
+        }
+        return events;
+    }
+
+    // Held deletions go first, as those which are not a part of a move may still be coalesced.
+    private void flushPendingEvents() {
+        long now = System.nanoTime();
+        moveDetector.flush(now, this::deliverEvent);
+        eventCoalescer.flush(now, this::dispatchEvent);
+        if (readyDetector != null) {
+            readyDetector.advance(now, this::dispatchEvent);
+        }
+    }
+
+    private long nanosToNextFlush(long now) {
+        long nextFlush = Long.MAX_VALUE;
+        if (!eventCoalescer.isEmpty()) {
+            nextFlush = eventCoalescer.nanosToNextFlush(now);
+        }
+        if (!moveDetector.isEmpty()) {
+            nextFlush = Math.min(nextFlush, moveDetector.nanosToNextFlush(now));
+        }
+        if (readyDetector != null && !readyDetector.isEmpty()) {
+            nextFlush = Math.min(nextFlush, readyDetector.nanosToNextFlush(now));
+        }
+        return nextFlush;
+    }
+
+    private void consumeEvent(FilesystemEvent event) {
+        metrics.recordQueueToConsumer(System.nanoTime() - event.getTimestamp());
+        Path path = event.getPath();
+        if (event.isOverflow()) {
+            recoverOverflow(path);
+            return;
+        }
+        if (CREATED == event.getEventType() && !moveDetector.isEmpty()) {
+            FilesystemEvent deletion = moveDetector.take(event);
+            if (deletion != null && !deletion.getPath().equals(path) && watchedConstraints.isIncluded(watchedPath, path)) {
+                consumeMove(deletion, event);
+                return;
+            }
+            if (deletion != null) {
+                deliverEvent(deletion);
+            }
+            moveDetector.flush(path, this::deliverEvent);
+        }
+        if (List.of(CREATED, INITIAL).contains(event.getEventType())) {
+            if (event.isDirectory()) {
+                startWatching(path);
+                // TODO refactor
+                if (CREATED == event.getEventType()) {
+                    FilesystemReader.builder()
+                            .watchedPath(path)
+                            .rootPath(watchedPath)
+                            .watchedConstraints(watchedConstraints)
+                            .watchedConsumer(filesystemEvent -> {
+                                if (!watchedKeys.containsKey(filesystemEvent.getPath())) {
+                                    deliverEvent(filesystemEvent.withEventType(CREATED));
+                                }
+                            }).build()
+                            .startWatching();
+                }
+            }
+        } else if (DELETED == event.getEventType()) {
+            FilesystemIndex.Entry entry = moveDetectionWindow.isZero() ? null : fileIndex.get(path);
+            if (stopWatchingSubtree(path) && subtreeDeletion) {
+                event = event.withEventType(SUBTREE_DELETED);
+            }
+            if (entry != null && entry.getFileKey() != null) {
+                moveDetector.add(event, entry, System.nanoTime() + moveDetectionWindow.toNanos(), this::deliverEvent);
+                return;
+            }
+        }
+        log.debug("Consumed event: {}", event);
+
+        deliverEvent(event);
+    }
+
+    // A moved directory is watched and indexed again under its new path, but its content is not reported as created.
+    private void consumeMove(FilesystemEvent deletion, FilesystemEvent creation) {
+        Path path = creation.getPath();
+        if (creation.isDirectory()) {
+            startWatching(path);
+            FilesystemReader.builder()
+                    .watchedPath(path)
+                    .rootPath(watchedPath)
+                    .watchedConstraints(watchedConstraints)
+                    .watchedConsumer(filesystemEvent -> {
+                        Path readPath = filesystemEvent.getPath();
+                        if (readPath.equals(path)) {
+                            return;
+                        }
+                        if (filesystemEvent.isDirectory() && !watchedKeys.containsKey(readPath)) {
+                            startWatching(readPath);
                         }
-                    }
-                } else if (DELETED == event.getEventType()) {
-                    stopWatching(path);
+                        if (watchedConstraints.isIncluded(watchedPath, readPath)) {
+                            fileIndex.update(filesystemEvent);
+                        }
+                    }).build()
+                    .startWatching();
+        }
+        FilesystemEvent moved = creation.movedFrom(deletion.getPath());
+        log.debug("Consumed event: {}", moved);
+
+        deliverEvent(moved);
+    }
+
+    private void recoverOverflow(Path directory) {
+        List<FilesystemEvent> readEvents = new ArrayList<>();
+        try {
+            FilesystemReader.builder()
+                    .watchedPath(directory)
+                    .rootPath(watchedPath)
+                    .watchedConstraints(watchedConstraints)
+                    .watchedConsumer(readEvents::add)
+                    .build()
+                    .startWatching();
+        } catch (UncheckedIOException e) {
+            if (Files.exists(directory, LinkOption.NOFOLLOW_LINKS)) {
+                log.warn("Cannot rescan overflowed directory {}", directory, e);
+            } else {
+                log.warn("Overflowed directory {} does not exist anymore, its subtree is deleted", directory);
+                deleteSubtree(directory);
+            }
+            return;
+        }
+
+        Set<Path> createdDirectories = new HashSet<>();
+        Set<Path> existingPaths = new HashSet<>();
+        for (FilesystemEvent readEvent : readEvents) {
+            Path path = readEvent.getPath();
+            existingPaths.add(path);
+            // Content of created directories is read again when their CREATED event is consumed.
+            if (isInsideAny(path, directory, createdDirectories)) {
+                continue;
+            }
+            FilesystemIndex.Entry previous = fileIndex.get(path);
+            if (previous == null) {
+                consumeEvent(readEvent.withEventType(CREATED));
+                if (readEvent.isDirectory()) {
+                    createdDirectories.add(path);
                 }
-                log.info("Consumed event: " + event);
+            } else if (!previous.equals(fileIndex.read(readEvent))) {
+                consumeEvent(readEvent.withEventType(MODIFIED));
+            }
+        }
+
+        List<Path> knownPaths = fileIndex.list(directory, watchedConstraints.isRecursive());
+        Collections.reverse(knownPaths);
+        for (Path path : knownPaths) {
+            if (!existingPaths.contains(path)) {
+                consumeEvent(FilesystemEvent.of(path, DELETED));
+            }
+        }
+    }
+
+    // Deletions of the content could be lost together with the deletion of the directory, so all of them are reported here.
+    private void deleteSubtree(Path directory) {
+        List<Path> knownPaths = fileIndex.list(directory, true);
+        if (fileIndex.get(directory) != null) {
+            knownPaths.add(0, directory);
+        }
+        Collections.reverse(knownPaths);
+        for (Path path : knownPaths) {
+            consumeEvent(FilesystemEvent.of(path, DELETED));
+        }
+        stopWatchingSubtree(directory);
+    }
+
+    private static boolean isInsideAny(Path path, Path root, Set<Path> directories) {
+        for (Path parent = path.getParent(); parent != null && !parent.equals(root); parent = parent.getParent()) {
+            if (directories.contains(parent)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void deliverEvent(FilesystemEvent event) {
+        // Directories outside of the include globs are still watched, as files inside them may be included.
+        if (!watchedConstraints.isIncluded(watchedPath, event.getPath())) {
+            return;
+        }
+        if (indexing || recoverOverflow || !moveDetectionWindow.isZero()) {
+            fileIndex.update(event);
+        }
+        if (contentVerification && !contentDigests.verify(event)) {
+            log.debug("Content not changed: {}", event);
+            return;
+        }
+        if (restoredEntries != null && INITIAL == event.getEventType()) {
+            FilesystemIndex.Entry restored = restoredEntries.get(event.getPath());
+            if (restored == null) {
+                event = event.withEventType(CREATED);
+            } else if (FilesystemSnapshot.isUnchanged(restored, fileIndex.get(event.getPath()))) {
+                return;
+            } else {
+                event = event.withEventType(MODIFIED);
+            }
+        }
+        if (coalescingWindow.isZero()) {
+            dispatchEvent(event);
+        } else {
+            eventCoalescer.add(event, System.nanoTime() + coalescingWindow.toNanos());
+        }
+    }
 
-                watchedConsumer.accept(event);
+    private void dispatchEvent(FilesystemEvent event) {
+        metrics.recordDelivered(event.getEventType());
+        // Files are tracked as dispatched, so READY always comes after the events of the write.
+        if (readyDetector != null && event.getEventType() != READY) {
+            readyDetector.track(event, System.nanoTime());
+        }
+        if (pullMode) {
+            pulledEvents.add(event);
+            return;
+        }
+        if (eventStripes != null) {
+            try {
+                eventStripes.dispatch(event);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
             }
+            return;
+        }
+        if (watchedBatchConsumer == null) {
+            acceptEvent(event);
+            return;
+        }
+        pendingEvents.add(event);
+        if (pendingEvents.size() >= batchSize) {
+            deliverPendingEvents();
+        }
+    }
+
+    private void deliverPendingEvents() {
+        if (pendingEvents.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            watchedBatchConsumer.accept(List.copyOf(pendingEvents));
+        } catch (RuntimeException e) {
+            log.error("Batch consumer of {} failed, {} events were skipped", watchedPath, pendingEvents.size(), e);
         }
+        metrics.recordConsumerExecution(System.nanoTime() - start);
+        pendingEvents.clear();
     }
 
-    @Value
-    private static class WatchableUtility {
+    // A failing consumer loses only the event it failed on, on every delivery path, and the following events are still delivered.
+    private void acceptEvent(FilesystemEvent event) {
+        long start = System.nanoTime();
+        try {
+            watchedConsumer.accept(event);
+        } catch (RuntimeException e) {
+            log.error("Consumer of {} failed, event was skipped: {}", watchedPath, event, e);
+        }
+        metrics.recordConsumerExecution(System.nanoTime() - start);
+    }
+
+    static class WatchableUtility {
         private static final Supplier<IllegalStateException> EXCEPTION_SUPPLIER = IllegalStateException::new;
         private static final WatchEvent.Kind[] ALL_EVENT_KINDS = new WatchEvent.Kind[]{ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY, OVERFLOW};
 
-        private final WatchService watchService = createWatchService();
+        @Getter
+        private volatile WatchService watchService;
+
+        void openWatchService(FilesystemPolling polling) {
+            watchService = polling == null ? createWatchService() : new AdaptivePollingWatchService(polling);
+        }
 
         private WatchService createWatchService() {
             FileSystem fileSystem = FileSystems.getDefault();
             return Try.of(fileSystem::newWatchService).getOrElseThrow(EXCEPTION_SUPPLIER);
         }
 
-        private WatchKey registerWatchable(Watchable watchable) {
+        WatchKey registerWatchable(Watchable watchable) {
+            if (watchService instanceof AdaptivePollingWatchService) {
+                AdaptivePollingWatchService pollingWatchService = (AdaptivePollingWatchService) watchService;
+                return Try.of(() -> pollingWatchService.register((Path) watchable)).getOrElseThrow(EXCEPTION_SUPPLIER);
+            }
             return Try.of(() -> watchable.register(watchService, ALL_EVENT_KINDS, SensitivityWatchEventModifier.HIGH)).getOrElseThrow(EXCEPTION_SUPPLIER);
         }
 
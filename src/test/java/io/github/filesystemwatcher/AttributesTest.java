@@ -0,0 +1,47 @@
+package io.github.filesystemwatcher;
+
+import io.github.filesystemwatcher.utilities.AwaitilityUtils;
+import io.github.filesystemwatcher.utilities.FilesystemUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static io.github.filesystemwatcher.FilesystemEventType.*;
+
+class AttributesTest {
+
+    @Test
+    void shouldCarryAttributesReadWithEvents(@TempDir Path temporaryDirectory) {
+        Path initial = FilesystemUtils.writeFile(temporaryDirectory.resolve("initial.txt"), "Hello");
+
+        List<FilesystemEvent> receivedEvents = Collections.synchronizedList(new ArrayList<>());
+        FilesystemMonitor monitor = FilesystemMonitor.builder()
+                .watchedPath(temporaryDirectory)
+                .watchedConstraints(FilesystemConstraints.DEFAULT.withFileTypes(List.of(FilesystemConstraints.FileType.REGULAR, FilesystemConstraints.FileType.DIRECTORY)))
+                .watchedConsumer(receivedEvents::add)
+                .build();
+        monitor.startWatching();
+        AwaitilityUtils.awaitForSize(receivedEvents, 1);
+
+        Path created = FilesystemUtils.createDirectory(temporaryDirectory, "created");
+        AwaitilityUtils.awaitForSize(receivedEvents, 2);
+        FilesystemUtils.delete(initial);
+        AwaitilityUtils.awaitForSize(receivedEvents, 3);
+        monitor.stopWatching();
+
+        Assertions.assertThat(receivedEvents).containsExactly(
+                FilesystemEvent.of(initial, INITIAL),
+                FilesystemEvent.of(created, CREATED),
+                FilesystemEvent.of(initial, DELETED)
+        );
+        Assertions.assertThat(receivedEvents.get(0).getAttributes()).get().extracting(BasicFileAttributes::size).isEqualTo(5L);
+        Assertions.assertThat(receivedEvents.get(1).getAttributes()).get().extracting(BasicFileAttributes::isDirectory).isEqualTo(true);
+        Assertions.assertThat(receivedEvents.get(2).getAttributes()).isEmpty();
+    }
+}
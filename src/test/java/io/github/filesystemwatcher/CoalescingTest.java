@@ -0,0 +1,107 @@
+package io.github.filesystemwatcher;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static io.github.filesystemwatcher.FilesystemEventType.*;
+
+class CoalescingTest {
+
+    private static final Path FIRST = Paths.get("first.txt");
+    private static final Path SECOND = Paths.get("second.txt");
+
+    @ParameterizedTest
+    @MethodSource
+    void shouldCoalesceEventsOfTheSamePath(List<FilesystemEventType> eventTypes, List<FilesystemEventType> expectedTypes) {
+        FilesystemEventCoalescer coalescer = new FilesystemEventCoalescer();
+        eventTypes.forEach(eventType -> coalescer.add(FilesystemEvent.of(FIRST, eventType), 0));
+
+        List<FilesystemEvent> receivedEvents = new ArrayList<>();
+        coalescer.flush(0, receivedEvents::add);
+
+        Assertions.assertThat(receivedEvents).extracting(FilesystemEvent::getEventType).containsExactlyElementsOf(expectedTypes);
+        Assertions.assertThat(coalescer.isEmpty()).isTrue();
+    }
+
+    private static Stream<Arguments> shouldCoalesceEventsOfTheSamePath() {
+        return Stream.of(
+                Arguments.of(List.of(CREATED, MODIFIED, MODIFIED), List.of(CREATED)),
+                Arguments.of(List.of(CREATED, MODIFIED, DELETED), List.of()),
+                Arguments.of(List.of(MODIFIED, MODIFIED, MODIFIED), List.of(MODIFIED)),
+                Arguments.of(List.of(MODIFIED, DELETED), List.of(DELETED)),
+                Arguments.of(List.of(DELETED, CREATED), List.of(MODIFIED)),
+                Arguments.of(List.of(INITIAL, MODIFIED), List.of(INITIAL)),
+                Arguments.of(List.of(CREATED, DELETED, CREATED), List.of(CREATED)),
+                Arguments.of(List.of(CREATED, SUBTREE_DELETED), List.of()),
+                Arguments.of(List.of(SUBTREE_DELETED, CREATED), List.of(SUBTREE_DELETED, CREATED)),
+                Arguments.of(List.of(SUBTREE_DELETED, CREATED, MODIFIED), List.of(SUBTREE_DELETED, CREATED)),
+                Arguments.of(List.of(SUBTREE_DELETED, CREATED, DELETED), List.of(SUBTREE_DELETED))
+        );
+    }
+
+    @Test
+    void shouldDropPendingEventsOfDeletedSubtree() {
+        Path directory = Paths.get("directory");
+        FilesystemEventCoalescer coalescer = new FilesystemEventCoalescer();
+        coalescer.add(FilesystemEvent.of(directory.resolve("nested").resolve("file.txt"), DELETED), 0);
+        coalescer.add(FilesystemEvent.of(directory.resolve("file.txt"), MODIFIED), 0);
+        coalescer.add(FilesystemEvent.of(FIRST, MODIFIED), 0);
+        coalescer.add(FilesystemEvent.of(directory, SUBTREE_DELETED), 0);
+
+        List<FilesystemEvent> receivedEvents = new ArrayList<>();
+        coalescer.flush(0, receivedEvents::add);
+
+        Assertions.assertThat(receivedEvents).containsExactly(
+                FilesystemEvent.of(FIRST, MODIFIED),
+                FilesystemEvent.of(directory, SUBTREE_DELETED)
+        );
+    }
+
+    @Test
+    void shouldKeepPreviousPathOfMovedFile() {
+        FilesystemEventCoalescer coalescer = new FilesystemEventCoalescer();
+        coalescer.add(FilesystemEvent.of(SECOND, CREATED).movedFrom(FIRST), 0);
+        coalescer.add(FilesystemEvent.of(SECOND, MODIFIED), 0);
+
+        List<FilesystemEvent> receivedEvents = new ArrayList<>();
+        coalescer.flush(0, receivedEvents::add);
+
+        Assertions.assertThat(receivedEvents).containsExactly(FilesystemEvent.of(SECOND, CREATED).movedFrom(FIRST));
+    }
+
+    @Test
+    void shouldReportMovedAndDeletedFileAsDeletedFromPreviousPath() {
+        FilesystemEventCoalescer coalescer = new FilesystemEventCoalescer();
+        coalescer.add(FilesystemEvent.of(FIRST, MODIFIED), 0);
+        coalescer.add(FilesystemEvent.of(SECOND, CREATED).movedFrom(FIRST), 0);
+        coalescer.add(FilesystemEvent.of(SECOND, DELETED), 0);
+
+        List<FilesystemEvent> receivedEvents = new ArrayList<>();
+        coalescer.flush(0, receivedEvents::add);
+
+        Assertions.assertThat(receivedEvents).containsExactly(FilesystemEvent.of(FIRST, DELETED));
+    }
+
+    @Test
+    void shouldFlushOnlyEventsWithPassedDeadline() {
+        FilesystemEventCoalescer coalescer = new FilesystemEventCoalescer();
+        coalescer.add(FilesystemEvent.of(FIRST, CREATED), 10);
+        coalescer.add(FilesystemEvent.of(SECOND, CREATED), 20);
+        coalescer.add(FilesystemEvent.of(FIRST, MODIFIED), 30);
+
+        List<FilesystemEvent> receivedEvents = new ArrayList<>();
+        coalescer.flush(15, receivedEvents::add);
+
+        Assertions.assertThat(receivedEvents).containsExactly(FilesystemEvent.of(FIRST, CREATED));
+        Assertions.assertThat(coalescer.nanosToNextFlush(15)).isEqualTo(5);
+    }
+}
@@ -10,6 +10,7 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
@@ -84,13 +85,14 @@ class ConstraintsTest {
 
 	@ParameterizedTest
 	@MethodSource
-	void shouldFindProperFilesForCorrectConstraints(FilesystemConstraints constraints, List<Path> expectedPaths) {
+	void shouldFindProperFilesForCorrectConstraints(FilesystemConstraints constraints, List<Path> expectedPaths, int readerParallelism) {
 		List<FilesystemEvent> receivedEvents = new ArrayList<>();
 
 		FilesystemMonitor monitor = FilesystemMonitor.builder()
 				.watchedPath(temporaryDirectory)
 				.watchedConsumer(receivedEvents::add)
 				.watchedConstraints(constraints)
+				.readerParallelism(readerParallelism)
 				.build();
 
 		monitor.startWatching();
@@ -102,6 +104,33 @@ class ConstraintsTest {
 		Assertions.assertThat(receivedEvents).containsExactlyInAnyOrderElementsOf(expectedEvents);
 	}
 
+	@ParameterizedTest
+	@MethodSource
+	void shouldMatchFilenamesOfDeletedFiles(FilesystemConstraints constraints, String filename, boolean expected) {
+		FilesystemEvent event = FilesystemEvent.of(Paths.get("directory", filename), FilesystemEventType.DELETED);
+
+		Assertions.assertThat(constraints.test(event)).isEqualTo(expected);
+	}
+
+	private static Stream<Arguments> shouldMatchFilenamesOfDeletedFiles() {
+		FilesystemConstraints substrings = FilesystemConstraints.DEFAULT.withFilenameSubstrings(List.of("he", "she", "his", "hers"));
+		FilesystemConstraints patterns = FilesystemConstraints.DEFAULT.withFilenamePatterns(List.of(
+				Pattern.compile("(a+)b\\1"),
+				Pattern.compile("c.d", Pattern.LITERAL)
+		));
+		return Stream.of(
+				Arguments.of(substrings, "ushers", true),
+				Arguments.of(substrings, "this", true),
+				Arguments.of(substrings, "shhe", true),
+				Arguments.of(substrings, "hs", false),
+				Arguments.of(substrings.withFilenameSubstrings(List.of("")), "anything", true),
+				Arguments.of(patterns, "aabaa", true),
+				Arguments.of(patterns, "aaba", false),
+				Arguments.of(patterns, "c.d", true),
+				Arguments.of(patterns, "cxd", false)
+		);
+	}
+
 	private static Stream<Arguments> shouldFindProperFilesForCorrectConstraints() {
 		ConstraintTestSetup setup = new ConstraintTestSetup(temporaryDirectory);
 
@@ -130,6 +159,14 @@ class ConstraintsTest {
 						FilesystemConstraints.DEFAULT.withRecursive(true).withFilenamePatterns(List.of(Pattern.compile("^first.*"))),
 						List.of(setup.firstFile, setup.firstDirectory, setup.firstRecursiveFile, setup.firstRecursiveDirectory)
 				),
+				Arguments.of(
+						FilesystemConstraints.DEFAULT.withFilenameSubstrings(List.of("second", "third")),
+						List.of(setup.secondFile, setup.thirdFile, setup.secondDirectory, setup.thirdDirectory)
+				),
+				Arguments.of(
+						FilesystemConstraints.DEFAULT.withFilenamePatterns(List.of(Pattern.compile(".*\\.XLS", Pattern.CASE_INSENSITIVE), Pattern.compile("^third.*"))),
+						List.of(setup.secondFile, setup.thirdFile, setup.thirdDirectory)
+				),
 				Arguments.of(
 						FilesystemConstraints.DEFAULT.withFileTypes(List.of(FilesystemConstraints.FileType.DIRECTORY)),
 						List.of(setup.firstDirectory, setup.secondDirectory, setup.thirdDirectory, setup.recursive)
@@ -138,7 +175,10 @@ class ConstraintsTest {
 						FilesystemConstraints.DEFAULT.withRecursive(true).withFileTypes(List.of(FilesystemConstraints.FileType.DIRECTORY)),
 						List.of(setup.firstDirectory, setup.secondDirectory, setup.thirdDirectory, setup.recursive, setup.firstRecursiveDirectory, setup.secondRecursiveDirectory)
 				)
-		);
+		).flatMap(arguments -> Stream.of(
+				Arguments.of(arguments.get()[0], arguments.get()[1], 1),
+				Arguments.of(arguments.get()[0], arguments.get()[1], 4)
+		));
 	}
 
 
@@ -0,0 +1,105 @@
+package io.github.filesystemwatcher;
+
+import io.github.filesystemwatcher.utilities.AwaitilityUtils;
+import io.github.filesystemwatcher.utilities.FilesystemUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static io.github.filesystemwatcher.FilesystemEventType.*;
+
+class ContentVerificationTest {
+
+    @Test
+    void shouldDropModificationsKeepingContent(@TempDir Path temporaryDirectory) throws IOException {
+        Path file = FilesystemUtils.writeFile(temporaryDirectory.resolve("file.txt"), "Hello");
+
+        List<FilesystemEvent> receivedEvents = Collections.synchronizedList(new ArrayList<>());
+        FilesystemMonitor monitor = FilesystemMonitor.builder()
+                .watchedPath(temporaryDirectory)
+                .watchedConstraints(FilesystemConstraints.DEFAULT)
+                .watchedConsumer(receivedEvents::add)
+                .contentVerification(true)
+                .build();
+        monitor.startWatching();
+        AwaitilityUtils.awaitForSize(receivedEvents, 1);
+
+        Files.write(file, "Hello".getBytes(), StandardOpenOption.WRITE);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(60)));
+        Path marker = FilesystemUtils.createFile(temporaryDirectory, "marker.txt");
+        AwaitilityUtils.awaitForSize(receivedEvents, 2);
+        Files.write(file, "World".getBytes(), StandardOpenOption.WRITE);
+        AwaitilityUtils.awaitForSize(receivedEvents, 3);
+        monitor.stopWatching();
+
+        Assertions.assertThat(receivedEvents).containsExactly(
+                FilesystemEvent.of(file, INITIAL),
+                FilesystemEvent.of(marker, CREATED),
+                FilesystemEvent.of(file, MODIFIED)
+        );
+    }
+
+    @Test
+    void shouldCompareContentOfMappedFiles(@TempDir Path temporaryDirectory) throws IOException {
+        byte[] content = new byte[17 * 1024 * 1024];
+        Path file = Files.write(temporaryDirectory.resolve("large.bin"), content);
+        FilesystemContentDigests digests = new FilesystemContentDigests();
+        Assertions.assertThat(digests.verify(FilesystemEvent.of(file, INITIAL, FilesystemEvent.readAttributes(file)))).isTrue();
+
+        Files.write(file, content);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(60)));
+        Assertions.assertThat(digests.verify(FilesystemEvent.of(file, MODIFIED, FilesystemEvent.readAttributes(file)))).isFalse();
+
+        content[content.length - 1] = 1;
+        Files.write(file, content);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(120)));
+        Assertions.assertThat(digests.verify(FilesystemEvent.of(file, MODIFIED, FilesystemEvent.readAttributes(file)))).isTrue();
+        Assertions.assertThat(digests.verify(FilesystemEvent.of(file, MODIFIED, FilesystemEvent.readAttributes(file)))).isFalse();
+
+        Assertions.assertThat(digests.verify(FilesystemEvent.of(file, DELETED))).isTrue();
+        Assertions.assertThat(digests.verify(FilesystemEvent.of(file, MODIFIED, FilesystemEvent.readAttributes(file)))).isTrue();
+    }
+
+    @Test
+    void shouldCompareContentWhenModificationTimeIsKept(@TempDir Path temporaryDirectory) throws IOException {
+        Path file = FilesystemUtils.writeFile(temporaryDirectory.resolve("file.txt"), "Hello");
+        FileTime lastModified = Files.getLastModifiedTime(file);
+        FilesystemContentDigests digests = new FilesystemContentDigests();
+        Assertions.assertThat(digests.verify(FilesystemEvent.of(file, INITIAL))).isTrue();
+
+        // Same size and timestamp, as after a rewrite within the timestamp granularity of the filesystem.
+        Files.write(file, "World".getBytes());
+        Files.setLastModifiedTime(file, lastModified);
+        Assertions.assertThat(digests.verify(FilesystemEvent.of(file, MODIFIED))).isTrue();
+        Assertions.assertThat(digests.verify(FilesystemEvent.of(file, MODIFIED))).isFalse();
+    }
+
+    @Test
+    void shouldHashOnlyWhenSizeIsKept(@TempDir Path temporaryDirectory) throws IOException {
+        Path file = FilesystemUtils.writeFile(temporaryDirectory.resolve("file.txt"), "Hello");
+        FilesystemContentDigests digests = new FilesystemContentDigests();
+        Assertions.assertThat(digests.verify(FilesystemEvent.of(file, INITIAL))).isTrue();
+
+        Files.write(file, "Hello World".getBytes());
+        Assertions.assertThat(digests.verify(FilesystemEvent.of(file, MODIFIED))).isTrue();
+        // The content after the size change was not hashed, so the first write keeping the size cannot be compared.
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(60)));
+        Assertions.assertThat(digests.verify(FilesystemEvent.of(file, MODIFIED))).isTrue();
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(120)));
+        Assertions.assertThat(digests.verify(FilesystemEvent.of(file, MODIFIED))).isFalse();
+
+        Files.write(file, "Hello Earth".getBytes());
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(180)));
+        Assertions.assertThat(digests.verify(FilesystemEvent.of(file, MODIFIED))).isTrue();
+    }
+}
@@ -0,0 +1,112 @@
+package io.github.filesystemwatcher;
+
+import io.github.filesystemwatcher.utilities.AwaitilityUtils;
+import io.github.filesystemwatcher.utilities.FilesystemUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+import static io.github.filesystemwatcher.FilesystemEventType.*;
+
+class DispatcherTest {
+
+    @Test
+    void shouldRouteEventsToOwningMonitors(@TempDir Path temporaryDirectory) {
+        Path firstDirectory = FilesystemUtils.createDirectory(temporaryDirectory, "first");
+        Path secondDirectory = FilesystemUtils.createDirectory(temporaryDirectory, "second");
+        Path initial = FilesystemUtils.createFile(firstDirectory, "initial.txt");
+
+        try (FilesystemDispatcher dispatcher = FilesystemDispatcher.builder().consumerThreads(2).build()) {
+            List<FilesystemEvent> firstEvents = Collections.synchronizedList(new ArrayList<>());
+            List<FilesystemEvent> secondEvents = Collections.synchronizedList(new ArrayList<>());
+            FilesystemMonitor firstMonitor = createMonitor(dispatcher, firstDirectory, firstEvents::add).build();
+            FilesystemMonitor secondMonitor = createMonitor(dispatcher, secondDirectory, secondEvents::add).build();
+            firstMonitor.startWatching();
+            secondMonitor.startWatching();
+            AwaitilityUtils.awaitForSize(firstEvents, 1);
+
+            Path firstCreated = FilesystemUtils.createFile(firstDirectory, "created.txt");
+            Path secondCreated = FilesystemUtils.createFile(secondDirectory, "created.txt");
+            AwaitilityUtils.awaitForSize(firstEvents, 2);
+            AwaitilityUtils.awaitForSize(secondEvents, 1);
+
+            firstMonitor.stopWatching();
+            FilesystemUtils.delete(firstCreated);
+            // Deletion of the marker comes after the deletion in the first directory, which should not be delivered anymore.
+            FilesystemUtils.delete(secondCreated);
+            AwaitilityUtils.awaitForSize(secondEvents, 2);
+            secondMonitor.stopWatching();
+
+            Assertions.assertThat(firstEvents).containsExactly(
+                    FilesystemEvent.of(initial, INITIAL),
+                    FilesystemEvent.of(firstCreated, CREATED)
+            );
+            Assertions.assertThat(secondEvents).containsExactly(
+                    FilesystemEvent.of(secondCreated, CREATED),
+                    FilesystemEvent.of(secondCreated, DELETED)
+            );
+        }
+    }
+
+    @Test
+    void shouldDeliverEventsWhileAnotherMonitorIsBlocked(@TempDir Path temporaryDirectory) throws InterruptedException {
+        Path blockedDirectory = FilesystemUtils.createDirectory(temporaryDirectory, "blocked");
+        Path activeDirectory = FilesystemUtils.createDirectory(temporaryDirectory, "active");
+
+        try (FilesystemDispatcher dispatcher = FilesystemDispatcher.builder().consumerThreads(2).build()) {
+            CountDownLatch consumerEntered = new CountDownLatch(1);
+            CountDownLatch consumerReleased = new CountDownLatch(1);
+            List<FilesystemEvent> blockedEvents = Collections.synchronizedList(new ArrayList<>());
+            List<FilesystemEvent> activeEvents = Collections.synchronizedList(new ArrayList<>());
+            FilesystemMonitor blockedMonitor = createMonitor(dispatcher, blockedDirectory, event -> {
+                consumerEntered.countDown();
+                awaitQuietly(consumerReleased);
+                blockedEvents.add(event);
+            }).queueCapacity(1).build();
+            FilesystemMonitor activeMonitor = createMonitor(dispatcher, activeDirectory, activeEvents::add).build();
+            blockedMonitor.startWatching();
+            activeMonitor.startWatching();
+
+            List<Path> blockedFiles = new ArrayList<>();
+            blockedFiles.add(FilesystemUtils.createFile(blockedDirectory, "first.txt"));
+            consumerEntered.await();
+            for (int i = 0; i < 10; i++) {
+                blockedFiles.add(FilesystemUtils.createFile(blockedDirectory, "file" + i + ".txt"));
+            }
+            Path activeFile = FilesystemUtils.createFile(activeDirectory, "created.txt");
+            AwaitilityUtils.awaitForSize(activeEvents, 1);
+            Assertions.assertThat(blockedMonitor.getQueueStatistics().getSize()).isEqualTo(1);
+
+            consumerReleased.countDown();
+            AwaitilityUtils.awaitForSize(blockedEvents, blockedFiles.size());
+            blockedMonitor.stopWatching();
+            activeMonitor.stopWatching();
+
+            Assertions.assertThat(activeEvents).containsExactly(FilesystemEvent.of(activeFile, CREATED));
+            Assertions.assertThat(blockedEvents).extracting(FilesystemEvent::getPath).containsExactlyElementsOf(blockedFiles);
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static FilesystemMonitor.FilesystemMonitorBuilder createMonitor(FilesystemDispatcher dispatcher, Path watchedPath, Consumer<FilesystemEvent> consumer) {
+        return FilesystemMonitor.builder()
+                .watchedPath(watchedPath)
+                .watchedConstraints(FilesystemConstraints.DEFAULT)
+                .watchedConsumer(consumer)
+                .dispatcher(dispatcher);
+    }
+}
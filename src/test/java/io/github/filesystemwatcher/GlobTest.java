@@ -0,0 +1,54 @@
+package io.github.filesystemwatcher;
+
+import io.github.filesystemwatcher.utilities.AwaitilityUtils;
+import io.github.filesystemwatcher.utilities.FilesystemUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static io.github.filesystemwatcher.FilesystemEventType.*;
+
+class GlobTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4})
+    void shouldSkipExcludedSubtreesAndDeliverOnlyIncludedPaths(int readerParallelism, @TempDir Path temporaryDirectory) {
+        Path sources = FilesystemUtils.createDirectory(temporaryDirectory, "src");
+        Path modules = FilesystemUtils.createDirectory(temporaryDirectory, "node_modules");
+        Path initialSource = FilesystemUtils.createFile(sources, "Initial.java");
+        FilesystemUtils.createFile(modules, "Module.java");
+        FilesystemUtils.createFile(temporaryDirectory, "README.md");
+
+        List<FilesystemEvent> receivedEvents = Collections.synchronizedList(new ArrayList<>());
+        FilesystemMonitor monitor = FilesystemMonitor.builder()
+                .watchedPath(temporaryDirectory)
+                .watchedConstraints(FilesystemConstraints.DEFAULT
+                        .withRecursive(true)
+                        .withIncludeGlobs(List.of("**.java"))
+                        .withExcludeGlobs(List.of("node_modules", "**/generated")))
+                .watchedConsumer(receivedEvents::add)
+                .readerParallelism(readerParallelism)
+                .build();
+        monitor.startWatching();
+        AwaitilityUtils.awaitForSize(receivedEvents, 1);
+
+        // The included file is created last, so excluded changes would have been delivered before it.
+        Path generated = FilesystemUtils.createDirectory(sources, "generated");
+        FilesystemUtils.createFile(generated, "Generated.java");
+        FilesystemUtils.createFile(modules, "Created.java");
+        Path createdSource = FilesystemUtils.createFile(sources, "Created.java");
+        AwaitilityUtils.awaitForSize(receivedEvents, 2);
+        monitor.stopWatching();
+
+        Assertions.assertThat(receivedEvents).containsExactly(
+                FilesystemEvent.of(initialSource, INITIAL),
+                FilesystemEvent.of(createdSource, CREATED)
+        );
+    }
+}
@@ -0,0 +1,45 @@
+package io.github.filesystemwatcher;
+
+import io.github.filesystemwatcher.utilities.AwaitilityUtils;
+import io.github.filesystemwatcher.utilities.FilesystemUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+class IndexTest {
+
+    @Test
+    void shouldIndexReadAndWatchedPaths(@TempDir Path temporaryDirectory) {
+        Path directory = FilesystemUtils.createDirectory(temporaryDirectory, "directory");
+        Path nestedFile = FilesystemUtils.writeFile(directory.resolve("nested.txt"), "Hello");
+        Path file = FilesystemUtils.createFile(temporaryDirectory, "file.txt");
+
+        List<FilesystemEvent> receivedEvents = Collections.synchronizedList(new ArrayList<>());
+        FilesystemMonitor monitor = FilesystemMonitor.builder()
+                .watchedPath(temporaryDirectory)
+                .watchedConstraints(FilesystemConstraints.DEFAULT.withRecursive(true))
+                .watchedConsumer(receivedEvents::add)
+                .indexing(true)
+                .build();
+        monitor.startWatching();
+        AwaitilityUtils.awaitForSize(receivedEvents, 3);
+
+        FilesystemIndex index = monitor.getFileIndex();
+        Assertions.assertThat(index.count()).isEqualTo(3);
+        Assertions.assertThat(index.listChildren(directory).keySet()).containsExactly(nestedFile);
+        Assertions.assertThat(index.lookup(nestedFile)).hasValueSatisfying(entry -> Assertions.assertThat(entry.getSize()).isEqualTo(5));
+        Assertions.assertThat(index.lookup(directory)).hasValueSatisfying(entry -> Assertions.assertThat(entry.isDirectory()).isTrue());
+
+        FilesystemUtils.delete(file);
+        AwaitilityUtils.awaitForSize(receivedEvents, 4);
+
+        Assertions.assertThat(index.lookup(file)).isEmpty();
+        Assertions.assertThat(index.count()).isEqualTo(2);
+        monitor.stopWatching();
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.filesystemwatcher;
+
+import io.github.filesystemwatcher.utilities.AwaitilityUtils;
+import io.github.filesystemwatcher.utilities.FilesystemUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class MetricsTest {
+
+    @Test
+    void shouldExposeMetricsOverJmx(@TempDir Path temporaryDirectory) throws Exception {
+        FilesystemUtils.createDirectory(temporaryDirectory, "directory");
+
+        List<FilesystemEvent> receivedEvents = Collections.synchronizedList(new ArrayList<>());
+        FilesystemMonitor monitor = FilesystemMonitor.builder()
+                .watchedPath(temporaryDirectory)
+                .watchedConstraints(FilesystemConstraints.DEFAULT)
+                .watchedConsumer(receivedEvents::add)
+                .jmxEnabled(true)
+                .build();
+        monitor.startWatching();
+        AwaitilityUtils.awaitForSize(receivedEvents, 1);
+        FilesystemUtils.createFile(temporaryDirectory, "created.txt");
+        AwaitilityUtils.awaitForSize(receivedEvents, 2);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName query = new ObjectName("io.github.filesystemwatcher:type=FilesystemMonitor,path=" + ObjectName.quote(temporaryDirectory.toString()) + ",*");
+        Set<ObjectName> names = server.queryNames(query, null);
+        Assertions.assertThat(names).hasSize(1);
+        ObjectName name = names.iterator().next();
+
+        Assertions.assertThat(server.getAttribute(name, "ProducedEvents")).isEqualTo(2L);
+        Assertions.assertThat(server.getAttribute(name, "WatchedDirectories")).isEqualTo(2);
+        Assertions.assertThat(server.getAttribute(name, "WatchRegistrations")).isEqualTo(2L);
+        Assertions.assertThat(monitor.getMetrics().getDeliveredEvents())
+                .containsEntry("INITIAL", 1L)
+                .containsEntry("CREATED", 1L);
+        CompositeData queueLatency = (CompositeData) server.getAttribute(name, "QueueToConsumerLatency");
+        Assertions.assertThat(queueLatency.get("count")).isEqualTo(2L);
+        CompositeData watchLatency = (CompositeData) server.getAttribute(name, "WatchToQueueLatency");
+        Assertions.assertThat(watchLatency.get("count")).isEqualTo(1L);
+
+        monitor.stopWatching();
+        Assertions.assertThat(server.queryNames(query, null)).isEmpty();
+    }
+
+    @Test
+    void shouldKeepMaximumRecordedByConcurrentThreads() throws Exception {
+        FilesystemMetrics metrics = new FilesystemMetrics();
+        int threads = 4;
+        int values = 100000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> recorders = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            int offset = thread;
+            recorders.add(executor.submit(() -> {
+                for (int i = 0; i < values; i++) {
+                    metrics.recordConsumerExecution(1000L * (i * threads + offset));
+                }
+            }));
+        }
+        for (Future<?> recorder : recorders) {
+            recorder.get();
+        }
+        executor.shutdown();
+
+        FilesystemMetrics.Latency latency = metrics.getConsumerExecutionTime();
+        Assertions.assertThat(latency.getCount()).isEqualTo((long) threads * values);
+        Assertions.assertThat(latency.getMaxMicros()).isEqualTo((long) threads * values - 1);
+        Assertions.assertThat(latency.getP999Micros()).isLessThanOrEqualTo(latency.getMaxMicros());
+    }
+}
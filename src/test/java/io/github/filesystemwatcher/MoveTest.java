@@ -0,0 +1,102 @@
+package io.github.filesystemwatcher;
+
+import io.github.filesystemwatcher.utilities.AwaitilityUtils;
+import io.github.filesystemwatcher.utilities.FilesystemUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static io.github.filesystemwatcher.FilesystemEventType.*;
+
+class MoveTest {
+
+    private static final Duration MOVE_WINDOW = Duration.ofMillis(200);
+
+    @Test
+    void shouldReportRenamedFileAsMoved(@TempDir Path temporaryDirectory) {
+        Path file = FilesystemUtils.writeFile(temporaryDirectory.resolve("file.txt"), "Hello");
+
+        List<FilesystemEvent> receivedEvents = Collections.synchronizedList(new ArrayList<>());
+        FilesystemMonitor monitor = createMonitor(temporaryDirectory, receivedEvents);
+        monitor.startWatching();
+        AwaitilityUtils.awaitForSize(receivedEvents, 1);
+
+        Path renamed = FilesystemUtils.move(file, temporaryDirectory.resolve("renamed.txt"));
+        AwaitilityUtils.awaitForSize(receivedEvents, 2);
+        monitor.stopWatching();
+
+        Assertions.assertThat(receivedEvents).containsExactly(
+                FilesystemEvent.of(file, INITIAL),
+                FilesystemEvent.of(renamed, CREATED).movedFrom(file)
+        );
+        Assertions.assertThat(receivedEvents.get(1).getPreviousPath()).contains(file);
+        Assertions.assertThat(monitor.getFileIndex().lookup(file)).isEmpty();
+        Assertions.assertThat(monitor.getFileIndex().lookup(renamed)).isPresent();
+    }
+
+    @Test
+    void shouldReportMovedDirectoryAsSingleEvent(@TempDir Path temporaryDirectory) {
+        Path source = FilesystemUtils.createDirectory(temporaryDirectory, "source");
+        Path target = FilesystemUtils.createDirectory(temporaryDirectory, "target");
+        Path directory = FilesystemUtils.createDirectory(source, "directory");
+        FilesystemUtils.createDirectory(directory, "nested");
+        for (int i = 0; i < 100; i++) {
+            FilesystemUtils.createFile(directory, "file" + i + ".txt");
+        }
+
+        List<FilesystemEvent> receivedEvents = Collections.synchronizedList(new ArrayList<>());
+        FilesystemMonitor monitor = createMonitor(temporaryDirectory, receivedEvents);
+        monitor.startWatching();
+        AwaitilityUtils.awaitForSize(receivedEvents, 104);
+        receivedEvents.clear();
+
+        Path moved = FilesystemUtils.move(directory, target.resolve("directory"));
+        AwaitilityUtils.awaitForSize(receivedEvents, 1);
+        Path created = FilesystemUtils.createFile(moved.resolve("nested"), "created.txt");
+        AwaitilityUtils.awaitForSize(receivedEvents, 2);
+        monitor.stopWatching();
+
+        Assertions.assertThat(receivedEvents).containsExactly(
+                FilesystemEvent.of(moved, CREATED).movedFrom(directory),
+                FilesystemEvent.of(created, CREATED)
+        );
+        Assertions.assertThat(monitor.getFileIndex().listChildren(moved)).hasSize(101);
+        Assertions.assertThat(monitor.getFileIndex().listChildren(directory)).isEmpty();
+    }
+
+    @Test
+    void shouldReportDeletionAfterWindow(@TempDir Path temporaryDirectory) {
+        Path file = FilesystemUtils.createFile(temporaryDirectory, "file.txt");
+
+        List<FilesystemEvent> receivedEvents = Collections.synchronizedList(new ArrayList<>());
+        FilesystemMonitor monitor = createMonitor(temporaryDirectory, receivedEvents);
+        monitor.startWatching();
+        AwaitilityUtils.awaitForSize(receivedEvents, 1);
+
+        FilesystemUtils.delete(file);
+        Path created = FilesystemUtils.createFile(temporaryDirectory, "file.txt");
+        AwaitilityUtils.awaitForSize(receivedEvents, 3);
+        monitor.stopWatching();
+
+        Assertions.assertThat(receivedEvents).containsExactly(
+                FilesystemEvent.of(file, INITIAL),
+                FilesystemEvent.of(file, DELETED),
+                FilesystemEvent.of(created, CREATED)
+        );
+    }
+
+    private static FilesystemMonitor createMonitor(Path temporaryDirectory, List<FilesystemEvent> receivedEvents) {
+        return FilesystemMonitor.builder()
+                .watchedPath(temporaryDirectory)
+                .watchedConstraints(FilesystemConstraints.DEFAULT.withRecursive(true))
+                .watchedConsumer(receivedEvents::add)
+                .moveDetectionWindow(MOVE_WINDOW)
+                .build();
+    }
+}
@@ -0,0 +1,153 @@
+package io.github.filesystemwatcher;
+
+import io.github.filesystemwatcher.utilities.FilesystemUtils;
+import lombok.RequiredArgsConstructor;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.Watchable;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static io.github.filesystemwatcher.FilesystemEventType.*;
+
+class OverflowTest {
+
+    // Changes are not noticed by the watch service itself, so they are known only from the rescan after the overflow.
+    private static final FilesystemPolling BLIND_POLLING = FilesystemPolling.DEFAULT
+            .withMinimalInterval(Duration.ofHours(1))
+            .withMaximalInterval(Duration.ofHours(1));
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    private static final WatchEvent<Object> OVERFLOW_EVENT = new WatchEvent<>() {
+        @Override
+        public Kind<Object> kind() {
+            return StandardWatchEventKinds.OVERFLOW;
+        }
+
+        @Override
+        public int count() {
+            return 1;
+        }
+
+        @Override
+        public Object context() {
+            return null;
+        }
+    };
+
+    @Test
+    void shouldReportChangesLostInOverflow(@TempDir Path temporaryDirectory) throws InterruptedException {
+        Path modified = FilesystemUtils.writeFile(temporaryDirectory.resolve("modified.txt"), "Hello");
+        Path deleted = FilesystemUtils.createFile(temporaryDirectory, "deleted.txt");
+        FilesystemUtils.createFile(temporaryDirectory, "unchanged.txt");
+        BlockingQueue<FilesystemEvent> queue = new LinkedBlockingQueue<>();
+        FilesystemWatcher watcher = createWatcher(temporaryDirectory, queue, new FilesystemIndex());
+        watcher.startWatching();
+        readInitialEvents(temporaryDirectory, queue);
+        Assertions.assertThat(watcher.pollEvents(100, TIMEOUT)).hasSize(3);
+
+        FilesystemUtils.writeFile(modified, "Hello World");
+        FilesystemUtils.delete(deleted);
+        Path created = FilesystemUtils.createFile(temporaryDirectory, "created.txt");
+        Path directory = FilesystemUtils.createDirectory(temporaryDirectory, "directory");
+        Path nested = FilesystemUtils.createFile(directory, "nested.txt");
+        watcher.produceWatchEvents(new OverflowedKey(temporaryDirectory), List.of(OVERFLOW_EVENT));
+        List<FilesystemEvent> events = watcher.pollEvents(100, TIMEOUT);
+        watcher.stopWatching();
+
+        Assertions.assertThat(events).containsExactlyInAnyOrder(
+                FilesystemEvent.of(modified, MODIFIED),
+                FilesystemEvent.of(deleted, DELETED),
+                FilesystemEvent.of(created, CREATED),
+                FilesystemEvent.of(directory, CREATED),
+                FilesystemEvent.of(nested, CREATED)
+        );
+    }
+
+    @Test
+    void shouldDeleteSubtreeOfOverflowedDirectoryWhichIsGone(@TempDir Path temporaryDirectory) throws InterruptedException {
+        Path directory = FilesystemUtils.createDirectory(temporaryDirectory, "directory");
+        Path nestedDirectory = FilesystemUtils.createDirectory(directory, "nested");
+        Path file = FilesystemUtils.createFile(nestedDirectory, "file.txt");
+        BlockingQueue<FilesystemEvent> queue = new LinkedBlockingQueue<>();
+        FilesystemIndex fileIndex = new FilesystemIndex();
+        FilesystemWatcher watcher = createWatcher(temporaryDirectory, queue, fileIndex);
+        watcher.startWatching();
+        readInitialEvents(temporaryDirectory, queue);
+        Assertions.assertThat(watcher.pollEvents(100, TIMEOUT)).hasSize(3);
+
+        FilesystemUtils.delete(file);
+        FilesystemUtils.delete(nestedDirectory);
+        FilesystemUtils.delete(directory);
+        watcher.produceWatchEvents(new OverflowedKey(directory), List.of(OVERFLOW_EVENT));
+        List<FilesystemEvent> events = watcher.pollEvents(100, TIMEOUT);
+        watcher.stopWatching();
+
+        Assertions.assertThat(events).containsExactly(
+                FilesystemEvent.of(file, DELETED),
+                FilesystemEvent.of(nestedDirectory, DELETED),
+                FilesystemEvent.of(directory, DELETED)
+        );
+        Assertions.assertThat(fileIndex.count()).isZero();
+    }
+
+    private static FilesystemWatcher createWatcher(Path temporaryDirectory, BlockingQueue<FilesystemEvent> queue, FilesystemIndex fileIndex) {
+        return FilesystemWatcher.builder()
+                .watchedPath(temporaryDirectory)
+                .watchedConstraints(FilesystemConstraints.DEFAULT.withRecursive(true))
+                .recoverOverflow(true)
+                .pullMode(true)
+                .polling(BLIND_POLLING)
+                .fileIndex(fileIndex)
+                .blockingQueue(queue)
+                .producersExecutor(Executors.newSingleThreadExecutor())
+                .consumersExecutor(Executors.newSingleThreadExecutor())
+                .build();
+    }
+
+    private static void readInitialEvents(Path temporaryDirectory, BlockingQueue<FilesystemEvent> queue) {
+        FilesystemReader.builder()
+                .watchedPath(temporaryDirectory)
+                .watchedConstraints(FilesystemConstraints.DEFAULT.withRecursive(true))
+                .watchedConsumer(queue::add)
+                .build()
+                .startWatching();
+    }
+
+    @RequiredArgsConstructor
+    private static final class OverflowedKey implements WatchKey {
+        private final Path directory;
+
+        @Override
+        public boolean isValid() {
+            return true;
+        }
+
+        @Override
+        public List<WatchEvent<?>> pollEvents() {
+            return List.of();
+        }
+
+        @Override
+        public boolean reset() {
+            return true;
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+        @Override
+        public Watchable watchable() {
+            return directory;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package io.github.filesystemwatcher;
+
+import io.github.filesystemwatcher.utilities.AwaitilityUtils;
+import io.github.filesystemwatcher.utilities.FilesystemUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static io.github.filesystemwatcher.FilesystemEventType.*;
+
+class PollingTest {
+
+    private static final FilesystemPolling FAST_POLLING = FilesystemPolling.DEFAULT
+            .withMinimalInterval(Duration.ofMillis(10))
+            .withMaximalInterval(Duration.ofMillis(50));
+
+    @Test
+    void shouldWatchChangesByPolling(@TempDir Path temporaryDirectory) {
+        Path modified = FilesystemUtils.writeFile(temporaryDirectory.resolve("modified.txt"), "Hello");
+
+        List<FilesystemEvent> receivedEvents = Collections.synchronizedList(new ArrayList<>());
+        FilesystemMonitor monitor = FilesystemMonitor.builder()
+                .watchedPath(temporaryDirectory)
+                .watchedConstraints(FilesystemConstraints.DEFAULT)
+                .watchedConsumer(receivedEvents::add)
+                .polling(FAST_POLLING)
+                .build();
+        monitor.startWatching();
+        AwaitilityUtils.awaitForSize(receivedEvents, 1);
+
+        FilesystemUtils.writeFile(modified, "Hello World");
+        AwaitilityUtils.awaitForSize(receivedEvents, 2);
+        Path created = FilesystemUtils.createFile(temporaryDirectory, "created.txt");
+        AwaitilityUtils.awaitForSize(receivedEvents, 3);
+        FilesystemUtils.delete(created);
+        AwaitilityUtils.awaitForSize(receivedEvents, 4);
+        monitor.stopWatching();
+
+        Assertions.assertThat(receivedEvents).containsExactly(
+                FilesystemEvent.of(modified, INITIAL),
+                FilesystemEvent.of(modified, MODIFIED),
+                FilesystemEvent.of(created, CREATED),
+                FilesystemEvent.of(created, DELETED)
+        );
+    }
+}
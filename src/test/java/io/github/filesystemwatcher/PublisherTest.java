@@ -0,0 +1,203 @@
+package io.github.filesystemwatcher;
+
+import io.github.filesystemwatcher.utilities.AwaitilityUtils;
+import io.github.filesystemwatcher.utilities.FilesystemUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import static io.github.filesystemwatcher.FilesystemEventType.CREATED;
+import static io.github.filesystemwatcher.FilesystemEventType.INITIAL;
+
+class PublisherTest {
+
+    // How long events which were not requested are checked not to be delivered.
+    private static final Duration UNREQUESTED_WAIT = Duration.ofMillis(200);
+
+    @Test
+    void shouldDeliverOnlyRequestedEvents(@TempDir Path temporaryDirectory) {
+        Path first = FilesystemUtils.createFile(temporaryDirectory, "first.txt");
+        Path second = FilesystemUtils.createFile(temporaryDirectory, "second.txt");
+        FilesystemMonitor monitor = createMonitor(temporaryDirectory);
+        RecordingSubscriber subscriber = new RecordingSubscriber(1);
+        monitor.subscribe(subscriber);
+
+        monitor.startWatching();
+        Path created = FilesystemUtils.createFile(temporaryDirectory, "created.txt");
+        AwaitilityUtils.awaitForSize(subscriber.events, 1);
+        AwaitilityUtils.awaitForSteadySize(subscriber.events, 1, UNREQUESTED_WAIT);
+
+        subscriber.subscription.request(2);
+        AwaitilityUtils.awaitForSize(subscriber.events, 3);
+        Assertions.assertThat(subscriber.events).containsExactlyInAnyOrder(
+                FilesystemEvent.of(first, INITIAL),
+                FilesystemEvent.of(second, INITIAL),
+                FilesystemEvent.of(created, CREATED)
+        );
+        monitor.stopWatching();
+    }
+
+    @Test
+    void shouldDeliverEventsToAllSubscribers(@TempDir Path temporaryDirectory) {
+        List<FilesystemEvent> consumedEvents = Collections.synchronizedList(new ArrayList<>());
+        FilesystemMonitor monitor = FilesystemMonitor.builder()
+                .watchedPath(temporaryDirectory)
+                .watchedConstraints(FilesystemConstraints.DEFAULT)
+                .watchedConsumer(consumedEvents::add)
+                .build();
+        RecordingSubscriber firstSubscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        RecordingSubscriber secondSubscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        monitor.subscribe(firstSubscriber);
+        monitor.subscribe(secondSubscriber);
+
+        monitor.startWatching();
+        Path created = FilesystemUtils.createFile(temporaryDirectory, "created.txt");
+        AwaitilityUtils.awaitForSize(firstSubscriber.events, 1);
+        AwaitilityUtils.awaitForSize(secondSubscriber.events, 1);
+        monitor.stopWatching();
+
+        Assertions.assertThat(firstSubscriber.events).containsExactly(FilesystemEvent.of(created, CREATED));
+        Assertions.assertThat(secondSubscriber.events).containsExactly(FilesystemEvent.of(created, CREATED));
+        Assertions.assertThat(consumedEvents).containsExactly(FilesystemEvent.of(created, CREATED));
+        Assertions.assertThat(firstSubscriber.completed).isTrue();
+        Assertions.assertThat(secondSubscriber.completed).isTrue();
+    }
+
+    @Test
+    void shouldNotWaitForCancelledSubscriber(@TempDir Path temporaryDirectory) {
+        FilesystemMonitor monitor = createMonitor(temporaryDirectory);
+        RecordingSubscriber cancelledSubscriber = new RecordingSubscriber(0);
+        RecordingSubscriber activeSubscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        monitor.subscribe(cancelledSubscriber);
+        monitor.subscribe(activeSubscriber);
+
+        monitor.startWatching();
+        Path first = FilesystemUtils.createFile(temporaryDirectory, "first.txt");
+        AwaitilityUtils.awaitForSize(activeSubscriber.events, 1);
+        Path second = FilesystemUtils.createFile(temporaryDirectory, "second.txt");
+        AwaitilityUtils.awaitForSteadySize(activeSubscriber.events, 1, UNREQUESTED_WAIT);
+        Assertions.assertThat(activeSubscriber.events).containsExactly(FilesystemEvent.of(first, CREATED));
+
+        cancelledSubscriber.subscription.cancel();
+        AwaitilityUtils.awaitForSize(activeSubscriber.events, 2);
+        Assertions.assertThat(activeSubscriber.events).containsExactly(FilesystemEvent.of(first, CREATED), FilesystemEvent.of(second, CREATED));
+        monitor.stopWatching();
+
+        Assertions.assertThat(cancelledSubscriber.events).isEmpty();
+        Assertions.assertThat(cancelledSubscriber.completed).isFalse();
+    }
+
+    @Test
+    void shouldNotHoldDispatcherThreadWithoutDemand(@TempDir Path temporaryDirectory) {
+        Path subscribedDirectory = FilesystemUtils.createDirectory(temporaryDirectory, "subscribed");
+        Path consumedDirectory = FilesystemUtils.createDirectory(temporaryDirectory, "consumed");
+
+        try (FilesystemDispatcher dispatcher = FilesystemDispatcher.builder().consumerThreads(1).build()) {
+            List<FilesystemEvent> consumedEvents = Collections.synchronizedList(new ArrayList<>());
+            FilesystemMonitor subscribedMonitor = FilesystemMonitor.builder()
+                    .watchedPath(subscribedDirectory)
+                    .watchedConstraints(FilesystemConstraints.DEFAULT)
+                    .dispatcher(dispatcher)
+                    .build();
+            FilesystemMonitor consumedMonitor = FilesystemMonitor.builder()
+                    .watchedPath(consumedDirectory)
+                    .watchedConstraints(FilesystemConstraints.DEFAULT)
+                    .watchedConsumer(consumedEvents::add)
+                    .dispatcher(dispatcher)
+                    .build();
+            RecordingSubscriber subscriber = new RecordingSubscriber(1);
+            subscribedMonitor.subscribe(subscriber);
+            subscribedMonitor.startWatching();
+            consumedMonitor.startWatching();
+
+            Path first = FilesystemUtils.createFile(subscribedDirectory, "first.txt");
+            Path second = FilesystemUtils.createFile(subscribedDirectory, "second.txt");
+            AwaitilityUtils.awaitForSize(subscriber.events, 1);
+            Path created = FilesystemUtils.createFile(consumedDirectory, "created.txt");
+            AwaitilityUtils.awaitForSize(consumedEvents, 1);
+            Assertions.assertThat(subscriber.events).containsExactly(FilesystemEvent.of(first, CREATED));
+
+            subscriber.subscription.request(1);
+            AwaitilityUtils.awaitForSize(subscriber.events, 2);
+            subscribedMonitor.stopWatching();
+            consumedMonitor.stopWatching();
+
+            Assertions.assertThat(subscriber.events).containsExactly(FilesystemEvent.of(first, CREATED), FilesystemEvent.of(second, CREATED));
+            Assertions.assertThat(consumedEvents).containsExactly(FilesystemEvent.of(created, CREATED));
+        }
+    }
+
+    @Test
+    void shouldSignalErrorForNonPositiveDemand() {
+        FilesystemPublisher publisher = new FilesystemPublisher();
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(0);
+        publisher.accept(FilesystemEvent.of(Path.of("file.txt"), CREATED));
+
+        Assertions.assertThat(subscriber.error).isInstanceOf(IllegalArgumentException.class);
+        Assertions.assertThat(subscriber.events).isEmpty();
+    }
+
+    @Test
+    void shouldCompleteSubscribersOfClosedPublisher() {
+        FilesystemPublisher publisher = new FilesystemPublisher();
+        publisher.close();
+        RecordingSubscriber subscriber = new RecordingSubscriber(1);
+        publisher.subscribe(subscriber);
+
+        Assertions.assertThat(subscriber.subscription).isNotNull();
+        Assertions.assertThat(subscriber.completed).isTrue();
+    }
+
+    private static FilesystemMonitor createMonitor(Path temporaryDirectory) {
+        return FilesystemMonitor.builder()
+                .watchedPath(temporaryDirectory)
+                .watchedConstraints(FilesystemConstraints.DEFAULT)
+                .build();
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<FilesystemEvent> {
+
+        private final long initialDemand;
+        private final List<FilesystemEvent> events = Collections.synchronizedList(new ArrayList<>());
+        private volatile Flow.Subscription subscription;
+        private volatile boolean completed;
+        private volatile Throwable error;
+
+        RecordingSubscriber(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialDemand > 0) {
+                subscription.request(initialDemand);
+            }
+        }
+
+        @Override
+        public void onNext(FilesystemEvent event) {
+            events.add(event);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
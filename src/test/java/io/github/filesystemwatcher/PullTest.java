@@ -0,0 +1,167 @@
+package io.github.filesystemwatcher;
+
+import io.github.filesystemwatcher.utilities.FilesystemUtils;
+import org.assertj.core.api.Assertions;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.stream.Collectors;
+
+import static io.github.filesystemwatcher.FilesystemEventType.CREATED;
+import static io.github.filesystemwatcher.FilesystemEventType.INITIAL;
+
+class PullTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @Test
+    void shouldPollEventsOnCallingThread(@TempDir Path temporaryDirectory) throws InterruptedException {
+        Path first = FilesystemUtils.createFile(temporaryDirectory, "first.txt");
+        Path second = FilesystemUtils.createFile(temporaryDirectory, "second.txt");
+        FilesystemMonitor monitor = createMonitor(temporaryDirectory, FilesystemConstraints.DEFAULT);
+        monitor.startWatching();
+
+        List<FilesystemEvent> initialEvents = monitor.poll(1, TIMEOUT);
+        initialEvents.addAll(monitor.poll(10, TIMEOUT));
+        Assertions.assertThat(initialEvents).containsExactlyInAnyOrder(
+                FilesystemEvent.of(first, INITIAL),
+                FilesystemEvent.of(second, INITIAL)
+        );
+        Assertions.assertThat(monitor.poll(10, Duration.ZERO)).isEmpty();
+
+        Path created = FilesystemUtils.createFile(temporaryDirectory, "created.txt");
+        Assertions.assertThat(monitor.poll(10, TIMEOUT)).containsExactly(FilesystemEvent.of(created, CREATED));
+        monitor.stopWatching();
+    }
+
+    @Test
+    void shouldWatchDirectoriesCreatedBetweenPolls(@TempDir Path temporaryDirectory) throws InterruptedException {
+        FilesystemMonitor monitor = createMonitor(temporaryDirectory, FilesystemConstraints.DEFAULT.withRecursive(true));
+        monitor.startWatching();
+
+        Path directory = FilesystemUtils.createDirectory(temporaryDirectory, "directory");
+        Assertions.assertThat(monitor.poll(10, TIMEOUT)).containsExactly(FilesystemEvent.of(directory, CREATED));
+        Path nested = FilesystemUtils.createFile(directory, "nested.txt");
+        Assertions.assertThat(monitor.poll(10, TIMEOUT)).containsExactly(FilesystemEvent.of(nested, CREATED));
+        monitor.stopWatching();
+    }
+
+    @Test
+    void shouldStreamPolledEvents(@TempDir Path temporaryDirectory) {
+        FilesystemMonitor monitor = createMonitor(temporaryDirectory, FilesystemConstraints.DEFAULT);
+        monitor.startWatching();
+
+        List<Path> created = new ArrayList<>();
+        created.add(FilesystemUtils.createFile(temporaryDirectory, "first.txt"));
+        created.add(FilesystemUtils.createFile(temporaryDirectory, "second.txt"));
+        List<FilesystemEvent> events = monitor.stream()
+                .limit(2)
+                .collect(Collectors.toList());
+        monitor.stopWatching();
+
+        Assertions.assertThat(events).containsExactly(
+                FilesystemEvent.of(created.get(0), CREATED),
+                FilesystemEvent.of(created.get(1), CREATED)
+        );
+        Assertions.assertThat(monitor.stream()).isEmpty();
+    }
+
+    @Test
+    void shouldStreamEventsQueuedBeforeStopping(@TempDir Path temporaryDirectory) {
+        FilesystemMonitor monitor = createMonitor(temporaryDirectory, FilesystemConstraints.DEFAULT);
+        monitor.startWatching();
+
+        Path first = FilesystemUtils.createFile(temporaryDirectory, "first.txt");
+        Path second = FilesystemUtils.createFile(temporaryDirectory, "second.txt");
+        Awaitility.await().atMost(TIMEOUT).until(() -> monitor.getMetrics().getProducedEvents() == 2);
+        monitor.stopWatching();
+
+        Assertions.assertThat(monitor.stream()).containsExactly(
+                FilesystemEvent.of(first, CREATED),
+                FilesystemEvent.of(second, CREATED)
+        );
+    }
+
+    @Test
+    void shouldRejectPollingOfPushMonitor(@TempDir Path temporaryDirectory) {
+        FilesystemMonitor monitor = FilesystemMonitor.builder()
+                .watchedPath(temporaryDirectory)
+                .watchedConstraints(FilesystemConstraints.DEFAULT)
+                .watchedConsumer(event -> {
+                })
+                .build();
+        monitor.startWatching();
+
+        Assertions.assertThatThrownBy(() -> monitor.poll(10, Duration.ZERO))
+                .isInstanceOf(IllegalStateException.class);
+        monitor.stopWatching();
+    }
+
+    @Test
+    void shouldNotLimitInitialEventsByQueueCapacity(@TempDir Path temporaryDirectory) throws InterruptedException {
+        List<FilesystemEvent> expectedEvents = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            expectedEvents.add(FilesystemEvent.of(FilesystemUtils.createFile(temporaryDirectory, "file" + i + ".txt"), INITIAL));
+        }
+        FilesystemMonitor monitor = FilesystemMonitor.builder()
+                .watchedPath(temporaryDirectory)
+                .watchedConstraints(FilesystemConstraints.DEFAULT)
+                .pullMode(true)
+                .queueCapacity(2)
+                .build();
+        monitor.startWatching();
+
+        List<FilesystemEvent> initialEvents = monitor.poll(100, TIMEOUT);
+        monitor.stopWatching();
+
+        Assertions.assertThat(initialEvents).containsExactlyInAnyOrderElementsOf(expectedEvents);
+    }
+
+    @Test
+    void shouldRejectConsumersInPullMode(@TempDir Path temporaryDirectory) {
+        FilesystemMonitor.FilesystemMonitorBuilder monitorBuilder = FilesystemMonitor.builder()
+                .watchedPath(temporaryDirectory)
+                .watchedConstraints(FilesystemConstraints.DEFAULT)
+                .pullMode(true);
+
+        Assertions.assertThatIllegalStateException().isThrownBy(() -> monitorBuilder
+                .watchedConsumer(event -> {
+                }).build().startWatching());
+        Assertions.assertThatIllegalStateException().isThrownBy(() -> monitorBuilder
+                .watchedConsumer(null).watchedBatchConsumer(events -> {
+                }).build().startWatching());
+        Assertions.assertThatIllegalStateException().isThrownBy(() -> monitorBuilder
+                .watchedBatchConsumer(null).build().subscribe(new Flow.Subscriber<>() {
+                    @Override
+                    public void onSubscribe(Flow.Subscription subscription) {
+                        subscription.request(Long.MAX_VALUE);
+                    }
+
+                    @Override
+                    public void onNext(FilesystemEvent event) {
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                    }
+
+                    @Override
+                    public void onComplete() {
+                    }
+                }));
+    }
+
+    private static FilesystemMonitor createMonitor(Path temporaryDirectory, FilesystemConstraints constraints) {
+        return FilesystemMonitor.builder()
+                .watchedPath(temporaryDirectory)
+                .watchedConstraints(constraints)
+                .pullMode(true)
+                .build();
+    }
+}
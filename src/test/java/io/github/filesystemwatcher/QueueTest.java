@@ -0,0 +1,133 @@
+package io.github.filesystemwatcher;
+
+import io.github.filesystemwatcher.FilesystemEventQueue.BackpressurePolicy;
+import io.github.filesystemwatcher.utilities.FilesystemUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static io.github.filesystemwatcher.FilesystemEventType.*;
+
+class QueueTest {
+
+    private static final FilesystemEvent FIRST_CREATED = FilesystemEvent.of(Paths.get("first"), CREATED);
+    private static final FilesystemEvent FIRST_MODIFIED = FilesystemEvent.of(Paths.get("first"), MODIFIED);
+    private static final FilesystemEvent FIRST_DELETED = FilesystemEvent.of(Paths.get("first"), DELETED);
+    private static final FilesystemEvent SECOND_CREATED = FilesystemEvent.of(Paths.get("second"), CREATED);
+    private static final FilesystemEvent THIRD_CREATED = FilesystemEvent.of(Paths.get("third"), CREATED);
+
+    @Test
+    void shouldRejectEventsWhenFullWithBlockPolicy(@TempDir Path spillDirectory) throws InterruptedException {
+        FilesystemEventQueue queue = new FilesystemEventQueue(2, BackpressurePolicy.BLOCK, spillDirectory);
+
+        queue.put(FIRST_CREATED);
+        queue.put(SECOND_CREATED);
+
+        Assertions.assertThat(queue.offer(THIRD_CREATED, 10, TimeUnit.MILLISECONDS)).isFalse();
+        Assertions.assertThat(drain(queue)).containsExactly(FIRST_CREATED, SECOND_CREATED);
+    }
+
+    @Test
+    void shouldDropOldestEventsWhenFull(@TempDir Path spillDirectory) throws InterruptedException {
+        FilesystemEventQueue queue = new FilesystemEventQueue(2, BackpressurePolicy.DROP_OLDEST, spillDirectory);
+
+        queue.put(FIRST_CREATED);
+        queue.put(SECOND_CREATED);
+        queue.put(THIRD_CREATED);
+
+        Assertions.assertThat(drain(queue)).containsExactly(SECOND_CREATED, THIRD_CREATED);
+        Assertions.assertThat(queue.getStatistics().getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCoalesceEventsOfQueuedPathsWhenFull(@TempDir Path spillDirectory) throws InterruptedException {
+        FilesystemEventQueue queue = new FilesystemEventQueue(2, BackpressurePolicy.COALESCE_BY_PATH, spillDirectory);
+
+        queue.put(FIRST_CREATED);
+        queue.put(SECOND_CREATED);
+        queue.put(FIRST_MODIFIED);
+        queue.put(FIRST_DELETED);
+        queue.put(THIRD_CREATED);
+
+        Assertions.assertThat(drain(queue)).containsExactly(SECOND_CREATED, THIRD_CREATED);
+        Assertions.assertThat(queue.getStatistics().getCoalescedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldSpillEventsToDiskWhenFull(@TempDir Path spillDirectory) throws InterruptedException {
+        FilesystemEventQueue queue = new FilesystemEventQueue(1, BackpressurePolicy.SPILL_TO_DISK, spillDirectory);
+
+        queue.put(FIRST_CREATED);
+        queue.put(SECOND_CREATED);
+        queue.put(THIRD_CREATED);
+
+        Assertions.assertThat(queue.size()).isEqualTo(3);
+        Assertions.assertThat(drain(queue)).containsExactly(FIRST_CREATED, SECOND_CREATED, THIRD_CREATED);
+        Assertions.assertThat(queue.getStatistics().getSpilledCount()).isEqualTo(2);
+        Assertions.assertThat(spillDirectory).isEmptyDirectory();
+    }
+
+    @Test
+    void shouldKeepTimestampsAttributesAndOverflowsOfSpilledEvents(@TempDir Path spillDirectory) throws InterruptedException {
+        FilesystemEventQueue queue = new FilesystemEventQueue(1, BackpressurePolicy.SPILL_TO_DISK, spillDirectory);
+        Path file = FilesystemUtils.createFile(spillDirectory, "file.txt");
+        FilesystemEvent created = FilesystemEvent.of(file, CREATED, FilesystemEvent.readAttributes(file));
+
+        queue.put(FIRST_CREATED);
+        queue.put(created);
+        queue.put(FilesystemEvent.overflowOf(spillDirectory));
+        Assertions.assertThat(queue.size()).isEqualTo(3);
+        Assertions.assertThat(queue.remainingCapacity()).isEqualTo(Integer.MAX_VALUE);
+
+        Assertions.assertThat(queue.take()).isEqualTo(FIRST_CREATED);
+        FilesystemEvent spilled = queue.take();
+        Assertions.assertThat(spilled).isEqualTo(created);
+        Assertions.assertThat(spilled.getTimestamp()).isEqualTo(created.getTimestamp());
+        Assertions.assertThat(spilled.getAttributes()).hasValueSatisfying(attributes -> Assertions.assertThat(attributes.isRegularFile()).isTrue());
+        Assertions.assertThat(spilled.isOverflow()).isFalse();
+        Assertions.assertThat(queue.take().isOverflow()).isTrue();
+    }
+
+    @Test
+    void shouldKeepOrderOfEventsSpilledWhileTaken(@TempDir Path spillDirectory) throws Exception {
+        FilesystemEventQueue queue = new FilesystemEventQueue(16, BackpressurePolicy.SPILL_TO_DISK, spillDirectory);
+        List<FilesystemEvent> producedEvents = IntStream.range(0, 10000)
+                .mapToObj(i -> FilesystemEvent.of(Paths.get("file" + i), CREATED))
+                .collect(Collectors.toList());
+
+        ExecutorService producer = Executors.newSingleThreadExecutor();
+        Future<?> production = producer.submit(() -> {
+            for (FilesystemEvent event : producedEvents) {
+                queue.put(event);
+            }
+            return null;
+        });
+        List<FilesystemEvent> takenEvents = new ArrayList<>();
+        while (takenEvents.size() < producedEvents.size()) {
+            takenEvents.add(queue.take());
+        }
+        production.get();
+        producer.shutdown();
+
+        Assertions.assertThat(takenEvents).containsExactlyElementsOf(producedEvents);
+        Assertions.assertThat(queue.size()).isZero();
+        Assertions.assertThat(spillDirectory).isEmptyDirectory();
+    }
+
+    private static List<FilesystemEvent> drain(FilesystemEventQueue queue) {
+        List<FilesystemEvent> events = new ArrayList<>();
+        queue.drainTo(events);
+        return events;
+    }
+}
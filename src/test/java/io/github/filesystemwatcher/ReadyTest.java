@@ -0,0 +1,112 @@
+package io.github.filesystemwatcher;
+
+import io.github.filesystemwatcher.utilities.AwaitilityUtils;
+import io.github.filesystemwatcher.utilities.FilesystemUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static io.github.filesystemwatcher.FilesystemEventType.*;
+
+class ReadyTest {
+
+    private static final Duration READY_INTERVAL = Duration.ofMillis(300);
+
+    @Test
+    void shouldReportFileReadyOnceWritesStop(@TempDir Path temporaryDirectory) throws IOException, InterruptedException {
+        List<FilesystemEvent> readyEvents = Collections.synchronizedList(new ArrayList<>());
+        AtomicLong readyTime = new AtomicLong();
+        FilesystemMonitor monitor = createMonitor(temporaryDirectory, event -> {
+            if (READY == event.getEventType()) {
+                readyTime.set(System.nanoTime());
+                readyEvents.add(event);
+            }
+        });
+        monitor.startWatching();
+
+        Path file = FilesystemUtils.createFile(temporaryDirectory, "file.txt");
+        for (int i = 0; i < 5; i++) {
+            Thread.sleep(READY_INTERVAL.toMillis() / 3);
+            Files.write(file, "chunk".getBytes(), StandardOpenOption.APPEND);
+        }
+        long lastWrite = System.nanoTime();
+        AwaitilityUtils.awaitForSize(readyEvents, 1);
+        AwaitilityUtils.awaitForSteadySize(readyEvents, 1, READY_INTERVAL.multipliedBy(2));
+        monitor.stopWatching();
+
+        Assertions.assertThat(readyEvents).containsExactly(FilesystemEvent.of(file, READY));
+        Assertions.assertThat(readyEvents.get(0).getAttributes()).hasValueSatisfying(attributes ->
+                Assertions.assertThat(attributes.size()).isEqualTo(25));
+        Assertions.assertThat(readyTime.get() - lastWrite).isGreaterThanOrEqualTo(READY_INTERVAL.toNanos());
+    }
+
+    @Test
+    void shouldNotReportDeletedFile(@TempDir Path temporaryDirectory) {
+        List<FilesystemEvent> readyEvents = Collections.synchronizedList(new ArrayList<>());
+        FilesystemMonitor monitor = createMonitor(temporaryDirectory, event -> {
+            if (READY == event.getEventType()) {
+                readyEvents.add(event);
+            }
+        });
+        monitor.startWatching();
+
+        Path deleted = FilesystemUtils.writeFile(temporaryDirectory.resolve("deleted.txt"), "Hello");
+        FilesystemUtils.delete(deleted);
+        Path marker = FilesystemUtils.createFile(temporaryDirectory, "marker.txt");
+        AwaitilityUtils.awaitForSize(readyEvents, 1);
+        AwaitilityUtils.awaitForSteadySize(readyEvents, 1, READY_INTERVAL.multipliedBy(2));
+        monitor.stopWatching();
+
+        Assertions.assertThat(readyEvents).containsExactly(FilesystemEvent.of(marker, READY));
+    }
+
+    @Test
+    void shouldPostponeFilesChangedWithinInterval(@TempDir Path temporaryDirectory) {
+        long interval = READY_INTERVAL.toNanos();
+        FilesystemReadyDetector detector = new FilesystemReadyDetector(interval);
+        List<Path> files = new ArrayList<>();
+        Set<Path> postponedFiles = new HashSet<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < 10000; i++) {
+            Path file = FilesystemUtils.createFile(temporaryDirectory, "file" + i + ".txt");
+            files.add(file);
+            detector.track(FilesystemEvent.of(file, CREATED, FilesystemEvent.readAttributes(file)), start);
+        }
+        for (int i = 0; i < files.size(); i += 2) {
+            Path file = files.get(i);
+            postponedFiles.add(file);
+            detector.track(FilesystemEvent.of(file, MODIFIED, FilesystemEvent.readAttributes(file)), start + interval / 2);
+        }
+
+        List<Path> readyFiles = new ArrayList<>();
+        detector.advance(start + interval + interval / 4, event -> readyFiles.add(event.getPath()));
+        Assertions.assertThat(readyFiles).hasSize(files.size() / 2).noneMatch(postponedFiles::contains);
+
+        readyFiles.clear();
+        detector.advance(start + 2 * interval, event -> readyFiles.add(event.getPath()));
+        Assertions.assertThat(readyFiles).containsExactlyInAnyOrderElementsOf(postponedFiles);
+        Assertions.assertThat(detector.isEmpty()).isTrue();
+    }
+
+    private static FilesystemMonitor createMonitor(Path temporaryDirectory, Consumer<FilesystemEvent> consumer) {
+        return FilesystemMonitor.builder()
+                .watchedPath(temporaryDirectory)
+                .watchedConstraints(FilesystemConstraints.DEFAULT)
+                .watchedConsumer(consumer)
+                .readyInterval(READY_INTERVAL)
+                .build();
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.filesystemwatcher;
+
+import io.github.filesystemwatcher.FilesystemEventRingBuffer.WaitStrategy;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.filesystemwatcher.FilesystemEventType.*;
+
+class RingBufferTest {
+
+    private static final int PRODUCERS = 4;
+    private static final int EVENTS_PER_PRODUCER = 10000;
+
+    @Test
+    void shouldRejectEventsWhenFull() throws InterruptedException {
+        FilesystemEventRingBuffer buffer = new FilesystemEventRingBuffer(2, WaitStrategy.PARK);
+        FilesystemEvent first = FilesystemEvent.of(Paths.get("first"), CREATED);
+        FilesystemEvent second = FilesystemEvent.of(Paths.get("second"), CREATED);
+
+        buffer.put(first);
+        buffer.put(second);
+
+        Assertions.assertThat(buffer.offer(FilesystemEvent.of(Paths.get("third"), CREATED), 10, TimeUnit.MILLISECONDS)).isFalse();
+        Assertions.assertThat(buffer.poll()).isEqualTo(first);
+        Assertions.assertThat(buffer.poll()).isEqualTo(second);
+        Assertions.assertThat(buffer.poll(10, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = WaitStrategy.class, names = {"YIELD", "PARK"})
+    void shouldKeepOrderOfEachProducer(WaitStrategy waitStrategy) throws InterruptedException {
+        shouldKeepOrderOfEachProducer(waitStrategy, PRODUCERS);
+    }
+
+    @Test
+    void shouldKeepOrderOfSingleProducerWhenSpinning() throws InterruptedException {
+        // Spinning threads do not give up the processor, so the busy spin is checked with one producer only.
+        shouldKeepOrderOfEachProducer(WaitStrategy.SPIN, 1);
+    }
+
+    private static void shouldKeepOrderOfEachProducer(WaitStrategy waitStrategy, int producersCount) throws InterruptedException {
+        FilesystemEventRingBuffer buffer = new FilesystemEventRingBuffer(64, waitStrategy);
+        ExecutorService producers = Executors.newFixedThreadPool(producersCount);
+        for (int producer = 0; producer < producersCount; producer++) {
+            Path directory = Paths.get("producer" + producer);
+            producers.submit(() -> {
+                for (int i = 0; i < EVENTS_PER_PRODUCER; i++) {
+                    buffer.put(FilesystemEvent.of(directory.resolve(Integer.toString(i)), MODIFIED));
+                }
+                return null;
+            });
+        }
+
+        Map<Path, Integer> lastEvents = new HashMap<>();
+        List<FilesystemEvent> receivedEvents = new ArrayList<>();
+        while (receivedEvents.size() < producersCount * EVENTS_PER_PRODUCER) {
+            FilesystemEvent event = buffer.take();
+            int number = Integer.parseInt(event.getPath().getFileName().toString());
+            Integer previous = lastEvents.put(event.getPath().getParent(), number);
+            Assertions.assertThat(number).isEqualTo(previous == null ? 0 : previous + 1);
+            receivedEvents.add(event);
+        }
+        producers.shutdownNow();
+
+        Assertions.assertThat(buffer.isEmpty()).isTrue();
+    }
+}
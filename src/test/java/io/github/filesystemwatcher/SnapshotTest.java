@@ -0,0 +1,94 @@
+package io.github.filesystemwatcher;
+
+import io.github.filesystemwatcher.utilities.AwaitilityUtils;
+import io.github.filesystemwatcher.utilities.FilesystemUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.ObjectName;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static io.github.filesystemwatcher.FilesystemEventType.*;
+
+class SnapshotTest {
+
+    @Test
+    void shouldEmitOnlyChangesSincePreviousRun(@TempDir Path temporaryDirectory) {
+        Path watchedDirectory = FilesystemUtils.createDirectory(temporaryDirectory, "watched");
+        Path snapshotFile = temporaryDirectory.resolve("snapshot");
+        Path unchanged = FilesystemUtils.writeFile(watchedDirectory.resolve("unchanged.txt"), "Hello");
+        Path modified = FilesystemUtils.writeFile(watchedDirectory.resolve("modified.txt"), "Hello");
+        Path deleted = FilesystemUtils.createFile(watchedDirectory, "deleted.txt");
+
+        List<FilesystemEvent> firstRunEvents = Collections.synchronizedList(new ArrayList<>());
+        FilesystemMonitor firstMonitor = createMonitor(watchedDirectory, snapshotFile, firstRunEvents).build();
+        firstMonitor.startWatching();
+        AwaitilityUtils.awaitForSize(firstRunEvents, 3);
+        firstMonitor.stopWatching();
+
+        FilesystemUtils.writeFile(modified, "Hello World");
+        FilesystemUtils.delete(deleted);
+        Path created = FilesystemUtils.createFile(watchedDirectory, "created.txt");
+
+        List<FilesystemEvent> secondRunEvents = Collections.synchronizedList(new ArrayList<>());
+        FilesystemMonitor secondMonitor = createMonitor(watchedDirectory, snapshotFile, secondRunEvents).build();
+        secondMonitor.startWatching();
+        // Deletions are found once the whole tree is read, so the unchanged file is already indexed when they arrive.
+        AwaitilityUtils.awaitForSize(secondRunEvents, 3);
+        secondMonitor.stopWatching();
+
+        Assertions.assertThat(secondRunEvents).containsExactlyInAnyOrder(
+                FilesystemEvent.of(modified, MODIFIED),
+                FilesystemEvent.of(deleted, DELETED),
+                FilesystemEvent.of(created, CREATED)
+        );
+        Assertions.assertThat(secondMonitor.getFileIndex().lookup(unchanged)).isPresent();
+    }
+
+    @Test
+    void shouldIgnoreSnapshotOfUnknownFormat(@TempDir Path temporaryDirectory) {
+        Path watchedDirectory = FilesystemUtils.createDirectory(temporaryDirectory, "watched");
+        Path snapshotFile = FilesystemUtils.writeFile(temporaryDirectory.resolve("snapshot"), "Older snapshot format");
+        Path file = FilesystemUtils.createFile(watchedDirectory, "file.txt");
+
+        List<FilesystemEvent> receivedEvents = Collections.synchronizedList(new ArrayList<>());
+        FilesystemMonitor monitor = createMonitor(watchedDirectory, snapshotFile, receivedEvents).build();
+        monitor.startWatching();
+        AwaitilityUtils.awaitForSize(receivedEvents, 1);
+        monitor.stopWatching();
+
+        Assertions.assertThat(receivedEvents).containsExactly(FilesystemEvent.of(file, INITIAL));
+    }
+
+    @Test
+    void shouldUnregisterMetricsWhenSnapshotCannotBeWritten(@TempDir Path temporaryDirectory) throws Exception {
+        Path watchedDirectory = FilesystemUtils.createDirectory(temporaryDirectory, "watched");
+        Path snapshotFile = temporaryDirectory.resolve("missing").resolve("snapshot");
+        FilesystemUtils.createFile(watchedDirectory, "file.txt");
+
+        List<FilesystemEvent> receivedEvents = Collections.synchronizedList(new ArrayList<>());
+        FilesystemMonitor monitor = createMonitor(watchedDirectory, snapshotFile, receivedEvents)
+                .jmxEnabled(true)
+                .build();
+        monitor.startWatching();
+        AwaitilityUtils.awaitForSize(receivedEvents, 1);
+
+        Assertions.assertThatThrownBy(monitor::stopWatching).isInstanceOf(UncheckedIOException.class);
+        ObjectName query = new ObjectName("io.github.filesystemwatcher:type=FilesystemMonitor,path=" + ObjectName.quote(watchedDirectory.toString()) + ",*");
+        Assertions.assertThat(ManagementFactory.getPlatformMBeanServer().queryNames(query, null)).isEmpty();
+    }
+
+    private static FilesystemMonitor.FilesystemMonitorBuilder createMonitor(Path watchedPath, Path snapshotFile, List<FilesystemEvent> receivedEvents) {
+        return FilesystemMonitor.builder()
+                .watchedPath(watchedPath)
+                .watchedConstraints(FilesystemConstraints.DEFAULT)
+                .watchedConsumer(receivedEvents::add)
+                .snapshotFile(snapshotFile);
+    }
+}
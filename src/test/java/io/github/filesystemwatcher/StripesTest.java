@@ -0,0 +1,45 @@
+package io.github.filesystemwatcher;
+
+import io.github.filesystemwatcher.utilities.AwaitilityUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static io.github.filesystemwatcher.FilesystemEventType.*;
+
+class StripesTest {
+
+    private static final List<FilesystemEventType> CHANGES = List.of(CREATED, MODIFIED, MODIFIED, DELETED);
+
+    @Test
+    void shouldKeepOrderOfEventsForEachPath() throws InterruptedException {
+        List<FilesystemEvent> receivedEvents = Collections.synchronizedList(new ArrayList<>());
+        FilesystemEventStripes stripes = new FilesystemEventStripes(4, false, receivedEvents::add);
+        List<Path> paths = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            paths.add(Paths.get("directory", "file" + i));
+        }
+
+        for (FilesystemEventType eventType : CHANGES) {
+            for (Path path : paths) {
+                stripes.dispatch(FilesystemEvent.of(path, eventType));
+            }
+        }
+        AwaitilityUtils.awaitForSize(receivedEvents, paths.size() * CHANGES.size());
+        stripes.close();
+
+        for (Path path : paths) {
+            List<FilesystemEventType> pathEvents = receivedEvents.stream()
+                    .filter(event -> event.getPath().equals(path))
+                    .map(FilesystemEvent::getEventType)
+                    .collect(Collectors.toList());
+            Assertions.assertThat(pathEvents).containsExactlyElementsOf(CHANGES);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.filesystemwatcher;
+
+import io.github.filesystemwatcher.utilities.AwaitilityUtils;
+import io.github.filesystemwatcher.utilities.FilesystemUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static io.github.filesystemwatcher.FilesystemEventType.*;
+
+class SubtreeDeletionTest {
+
+    @Test
+    void shouldReplaceDeletionsInsideSubtreeWithSingleEvent(@TempDir Path temporaryDirectory) {
+        Path directory = FilesystemUtils.createDirectory(temporaryDirectory, "directory");
+        Path nested = FilesystemUtils.createDirectory(directory, "nested");
+        Path file = FilesystemUtils.createFile(nested, "file.txt");
+
+        List<FilesystemEvent> receivedEvents = Collections.synchronizedList(new ArrayList<>());
+        FilesystemMonitor monitor = createMonitor(temporaryDirectory, receivedEvents);
+        monitor.startWatching();
+        AwaitilityUtils.awaitForSize(receivedEvents, 3);
+
+        FilesystemUtils.delete(file);
+        FilesystemUtils.delete(nested);
+        FilesystemUtils.delete(directory);
+        // Events are delivered in order, so deletions inside the subtree would come before the marker.
+        Path marker = FilesystemUtils.createFile(temporaryDirectory, "marker.txt");
+        AwaitilityUtils.awaitForSize(receivedEvents, 5);
+        monitor.stopWatching();
+
+        Assertions.assertThat(receivedEvents.subList(3, receivedEvents.size())).containsExactly(
+                FilesystemEvent.of(directory, SUBTREE_DELETED),
+                FilesystemEvent.of(marker, CREATED)
+        );
+    }
+
+    @Test
+    void shouldReportSubtreeMovedOutOfWatchedDirectory(@TempDir Path temporaryDirectory) {
+        Path watchedDirectory = FilesystemUtils.createDirectory(temporaryDirectory, "watched");
+        Path directory = FilesystemUtils.createDirectory(watchedDirectory, "directory");
+        Path nested = FilesystemUtils.createDirectory(directory, "nested");
+
+        List<FilesystemEvent> receivedEvents = Collections.synchronizedList(new ArrayList<>());
+        FilesystemMonitor monitor = createMonitor(watchedDirectory, receivedEvents);
+        monitor.startWatching();
+        AwaitilityUtils.awaitForSize(receivedEvents, 2);
+
+        Path moved = FilesystemUtils.move(directory, temporaryDirectory.resolve("moved"));
+        AwaitilityUtils.awaitForSize(receivedEvents, 3);
+        FilesystemUtils.createFile(moved.resolve("nested"), "file.txt");
+        Path marker = FilesystemUtils.createFile(watchedDirectory, "marker.txt");
+        AwaitilityUtils.awaitForSize(receivedEvents, 4);
+        monitor.stopWatching();
+
+        Assertions.assertThat(receivedEvents).containsExactlyInAnyOrder(
+                FilesystemEvent.of(directory, INITIAL),
+                FilesystemEvent.of(nested, INITIAL),
+                FilesystemEvent.of(directory, SUBTREE_DELETED),
+                FilesystemEvent.of(marker, CREATED)
+        );
+    }
+
+    private static FilesystemMonitor createMonitor(Path watchedPath, List<FilesystemEvent> receivedEvents) {
+        return FilesystemMonitor.builder()
+                .watchedPath(watchedPath)
+                .watchedConstraints(FilesystemConstraints.DEFAULT.withRecursive(true))
+                .watchedConsumer(receivedEvents::add)
+                .coalescingWindow(Duration.ofMillis(100))
+                .subtreeDeletion(true)
+                .build();
+    }
+}
@@ -0,0 +1,35 @@
+package io.github.filesystemwatcher;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+class SubtreesTest {
+
+    private static final Path ROOT = Paths.get("/watched");
+    private static final Path FIRST = ROOT.resolve("first");
+    private static final Path NESTED = FIRST.resolve("nested");
+    private static final Path SIBLING = ROOT.resolve("first-sibling");
+    private static final Path SECOND = ROOT.resolve("second");
+
+    @Test
+    void shouldRemoveOnlyDescendants() {
+        NavigableMap<Path, String> map = new TreeMap<>();
+        map.put(ROOT, "root");
+        map.put(FIRST, "first");
+        map.put(NESTED, "nested");
+        map.put(SIBLING, "sibling");
+        map.put(SIBLING.resolve("nested"), "sibling nested");
+        map.put(SECOND, "second");
+
+        Assertions.assertThat(FilesystemSubtrees.remove(map, FIRST)).containsExactly("first", "nested");
+        Assertions.assertThat(map).containsOnlyKeys(ROOT, SIBLING, SIBLING.resolve("nested"), SECOND);
+
+        Assertions.assertThat(FilesystemSubtrees.remove(map, ROOT)).hasSize(4);
+        Assertions.assertThat(map).isEmpty();
+    }
+}
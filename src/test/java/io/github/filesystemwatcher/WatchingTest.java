@@ -1,15 +1,19 @@
 package io.github.filesystemwatcher;
 
 import io.github.filesystemwatcher.utilities.AwaitilityUtils;
+import io.github.filesystemwatcher.utilities.FilesystemUtils;
 import io.github.filesystemwatcher.utilities.WatchCoordinator;
 import io.github.filesystemwatcher.utilities.WatchImplementation;
 import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -19,21 +23,103 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.stream.Stream;
 
+import static io.github.filesystemwatcher.FilesystemEventType.CREATED;
+
 class WatchingTest {
 
     @ParameterizedTest
     @MethodSource("scenarios")
     void shouldWatchCorrectlyChangesInAllScenarios(Scenario scenario, @TempDir Path temporaryDirectory) throws InterruptedException, ExecutionException {
+        List<FilesystemEvent> receivedEvents = Collections.synchronizedList(new ArrayList<>());
+        FilesystemMonitor.FilesystemMonitorBuilder monitorBuilder = FilesystemMonitor.builder()
+                .watchedConsumer(receivedEvents::add);
+
+        shouldWatchCorrectly(scenario, temporaryDirectory, monitorBuilder, receivedEvents);
+    }
+
+    @ParameterizedTest
+    @MethodSource("scenarios")
+    void shouldWatchCorrectlyChangesInAllScenariosWithBatchConsumer(Scenario scenario, @TempDir Path temporaryDirectory) throws InterruptedException, ExecutionException {
+        List<FilesystemEvent> receivedEvents = Collections.synchronizedList(new ArrayList<>());
+        FilesystemMonitor.FilesystemMonitorBuilder monitorBuilder = FilesystemMonitor.builder()
+                .watchedBatchConsumer(receivedEvents::addAll)
+                .batchSize(2)
+                .batchLinger(Duration.ofMillis(10));
+
+        shouldWatchCorrectly(scenario, temporaryDirectory, monitorBuilder, receivedEvents);
+    }
+
+    @ParameterizedTest
+    @MethodSource("scenarios")
+    void shouldWatchCorrectlyChangesInAllScenariosWithStripedDispatch(Scenario scenario, @TempDir Path temporaryDirectory) throws InterruptedException, ExecutionException {
+        List<FilesystemEvent> receivedEvents = Collections.synchronizedList(new ArrayList<>());
+        FilesystemMonitor.FilesystemMonitorBuilder monitorBuilder = FilesystemMonitor.builder()
+                .watchedConsumer(receivedEvents::add)
+                .dispatchStripes(4);
+
+        shouldWatchCorrectly(scenario, temporaryDirectory, monitorBuilder, receivedEvents);
+    }
+
+    @ParameterizedTest
+    @MethodSource("scenarios")
+    void shouldWatchCorrectlyChangesInAllScenariosWithRingBuffer(Scenario scenario, @TempDir Path temporaryDirectory) throws InterruptedException, ExecutionException {
+        List<FilesystemEvent> receivedEvents = Collections.synchronizedList(new ArrayList<>());
+        FilesystemMonitor.FilesystemMonitorBuilder monitorBuilder = FilesystemMonitor.builder()
+                .watchedConsumer(receivedEvents::add)
+                .ringBufferWaitStrategy(FilesystemEventRingBuffer.WaitStrategy.PARK);
+
+        shouldWatchCorrectly(scenario, temporaryDirectory, monitorBuilder, receivedEvents);
+    }
+
+    @Test
+    void shouldRejectInvalidBatching(@TempDir Path temporaryDirectory) {
+        List<FilesystemEvent> receivedEvents = Collections.synchronizedList(new ArrayList<>());
+        FilesystemMonitor.FilesystemMonitorBuilder monitorBuilder = FilesystemMonitor.builder()
+                .watchedPath(temporaryDirectory)
+                .watchedConstraints(FilesystemConstraints.DEFAULT);
+
+        Assertions.assertThatIllegalArgumentException().isThrownBy(() -> monitorBuilder
+                .watchedBatchConsumer(receivedEvents::addAll).batchSize(0).build().startWatching());
+        Assertions.assertThatIllegalArgumentException().isThrownBy(() -> monitorBuilder
+                .watchedBatchConsumer(receivedEvents::addAll).batchSize(1).batchLinger(Duration.ofMillis(-1)).build().startWatching());
+        Assertions.assertThatIllegalStateException().isThrownBy(() -> monitorBuilder
+                .watchedBatchConsumer(receivedEvents::addAll).batchLinger(Duration.ZERO).watchedConsumer(receivedEvents::add).build().startWatching());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4})
+    void shouldDeliverEventsAfterConsumerFailure(int dispatchStripes, @TempDir Path temporaryDirectory) {
+        List<FilesystemEvent> receivedEvents = Collections.synchronizedList(new ArrayList<>());
+        FilesystemMonitor monitor = FilesystemMonitor.builder()
+                .watchedPath(temporaryDirectory)
+                .watchedConstraints(FilesystemConstraints.DEFAULT)
+                .watchedConsumer(event -> {
+                    if (event.getPath().getFileName().toString().startsWith("failing")) {
+                        throw new IllegalStateException("Consumer failure");
+                    }
+                    receivedEvents.add(event);
+                })
+                .dispatchStripes(dispatchStripes)
+                .build();
+        monitor.startWatching();
+
+        FilesystemUtils.createFile(temporaryDirectory, "failing.txt");
+        Path created = FilesystemUtils.createFile(temporaryDirectory, "created.txt");
+        AwaitilityUtils.awaitForSize(receivedEvents, 1);
+        monitor.stopWatching();
+
+        Assertions.assertThat(receivedEvents).containsExactly(FilesystemEvent.of(created, CREATED));
+    }
+
+    private void shouldWatchCorrectly(Scenario scenario, Path temporaryDirectory, FilesystemMonitor.FilesystemMonitorBuilder monitorBuilder, List<FilesystemEvent> receivedEvents) throws InterruptedException, ExecutionException {
         //when
         WatchCoordinator coordinator = new WatchCoordinator();
         Future<List<FilesystemEvent>> futureEvents = Executors.newSingleThreadExecutor().submit(() -> scenario.apply(temporaryDirectory, coordinator));
         coordinator.awaitSetup();
 
-        List<FilesystemEvent> receivedEvents = Collections.synchronizedList(new ArrayList<>());
-        FilesystemNotifier monitor = FilesystemMonitor.builder()
+        FilesystemNotifier monitor = monitorBuilder
                 .watchedPath(temporaryDirectory)
                 .watchedConstraints(FilesystemConstraints.DEFAULT.withRecursive(true))
-                .watchedConsumer(receivedEvents::add)
                 .build();
         //when
         monitor.startWatching();
@@ -44,6 +130,7 @@ class WatchingTest {
         //then
         List<FilesystemEvent> filesystemEvents = futureEvents.get();
         AwaitilityUtils.awaitForSize(receivedEvents, filesystemEvents.size());
+        monitor.stopWatching();
         Assertions.assertThat(receivedEvents).containsExactlyInAnyOrderElementsOf(filesystemEvents);
     }
 
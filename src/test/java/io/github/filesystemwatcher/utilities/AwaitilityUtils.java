@@ -35,6 +35,14 @@ public class AwaitilityUtils {
                 .until(() -> collection.size() >= expectedSize);
     }
 
+    // Fails as soon as the size changes within the duration, e.g. when events which should not come are delivered.
+    public static <T> void awaitForSteadySize(Collection<T> collection, int expectedSize, Duration duration) {
+        Awaitility.await()
+                .during(duration)
+                .atMost(duration.plus(DEFAULT_WAIT_TIME))
+                .until(() -> collection.size() == expectedSize);
+    }
+
     private static Duration findWaitingDuration() {
         WatchImplementation implementation = WatchImplementation.determineImplementation();
         return implementation.getSensitivity().multipliedBy(10);